@@ -0,0 +1,48 @@
+package tutorial.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks once for every given number of threads, with the GC
+ * profiler reporting the allocation rate. Usage:
+ * <pre>
+ * java -jar benchmarks.jar [benchmark regexp] [thread count]...
+ * </pre>
+ * By default, all benchmarks are run with a single thread and with as many
+ * threads as there are available processors. For any other combination of
+ * options, the JMH command line is available as {@code org.openjdk.jmh.Main}
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+        // Command line tool
+    }
+
+    /**
+     * Runs the benchmarks
+     * @param args the regular expression selecting the benchmarks,
+     *             followed by the thread counts
+     * @throws RunnerException if a benchmark fails
+     */
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : "tutorial\\.benchmarks\\..*";
+        int[] threadCounts = {1, Runtime.getRuntime().availableProcessors()};
+        if (args.length > 1) {
+            threadCounts = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                threadCounts[i - 1] = Integer.parseInt(args[i]);
+            }
+        }
+        for (int threadCount : threadCounts) {
+            Options options = new OptionsBuilder().include(include)
+                                                  .threads(threadCount)
+                                                  .addProfiler(GCProfiler.class)
+                                                  .build();
+            new Runner(options).run();
+        }
+    }
+}
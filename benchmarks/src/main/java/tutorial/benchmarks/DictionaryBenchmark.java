@@ -0,0 +1,99 @@
+package tutorial.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tutorial.example2.service.DictionaryService;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link DictionaryService#checkWord(String)} and the batch
+ * {@link DictionaryService#checkWords(List)} of every dictionary
+ * implementation, for different dictionary sizes and shares of hits
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DictionaryBenchmark {
+
+    // Number of distinct checked words, a power of two
+    private static final int CHECKED_WORDS = 1 << 12;
+    // Number of words checked by a single batch call
+    private static final int BATCH_SIZE = 256;
+
+    @Param({"LINEAR", "HASHED", "AUTOMATON", "MAPPED"})
+    private Implementation implementation;
+
+    @Param({"1000", "100000", "500000"})
+    private int dictionarySize;
+
+    @Param({"0.0", "0.5", "1.0"})
+    private double hitRatio;
+
+    private DictionaryService dictionary;
+    private String[] checkedWords;
+    private List<String> batch;
+
+    /**
+     * Builds the dictionary and the checked words
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        List<String> words = Words.dictionary(dictionarySize, random);
+        dictionary = implementation.create(words);
+        checkedWords = Words.checked(words, CHECKED_WORDS, hitRatio, random);
+        batch = Arrays.asList(Arrays.copyOf(checkedWords, BATCH_SIZE));
+    }
+
+    /**
+     * Per-thread position in the checked words, so that
+     * the threads don't contend for a shared counter
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int position;
+
+        int next() {
+            position = (position + 1) & (CHECKED_WORDS - 1);
+            return position;
+        }
+    }
+
+    /**
+     * Checks a single word
+     * @param cursor the position in the checked words
+     * @return the verdict, consumed by the harness
+     */
+    @Benchmark
+    public boolean checkWord(Cursor cursor) {
+        return dictionary.checkWord(checkedWords[cursor.next()]);
+    }
+
+    /**
+     * Checks a batch of words in a single call
+     * @return the hits, consumed by the harness
+     */
+    @Benchmark
+    public BitSet checkWords() {
+        return dictionary.checkWords(batch);
+    }
+}
@@ -0,0 +1,57 @@
+package tutorial.benchmarks;
+
+import tutorial.example2.dictionary.AutomatonDictionary;
+import tutorial.example2.dictionary.HashedDictionary;
+import tutorial.example2.dictionary.MappedDictionary;
+import tutorial.example2.service.DictionaryService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * The benchmarked dictionary service implementations
+ */
+public enum Implementation {
+
+    LINEAR {
+        @Override
+        DictionaryService create(List<String> words) {
+            return new LinearDictionary(words);
+        }
+    },
+    HASHED {
+        @Override
+        DictionaryService create(List<String> words) {
+            return new HashedDictionary(words);
+        }
+    },
+    AUTOMATON {
+        @Override
+        DictionaryService create(List<String> words) {
+            return new AutomatonDictionary(words);
+        }
+    },
+    MAPPED {
+        @Override
+        DictionaryService create(List<String> words) {
+            try {
+                Path file = Files.createTempFile("dictionary", ".dic");
+                file.toFile().deleteOnExit();
+                MappedDictionary.compile(words, file);
+                return MappedDictionary.open(file);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+    };
+
+    /**
+     * Creates a dictionary containing the given words
+     * @param words the words of the dictionary
+     * @return the dictionary
+     */
+    abstract DictionaryService create(List<String> words);
+}
@@ -0,0 +1,26 @@
+package tutorial.benchmarks;
+
+import tutorial.example2.service.DictionaryService;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The original dictionary service implementation of Example 2, which
+ * scans all the words for every checked word. Kept as the baseline
+ * the other implementations are compared with
+ */
+final class LinearDictionary implements DictionaryService {
+
+    private final String[] knownWords;
+
+    LinearDictionary(List<String> knownWords) {
+        this.knownWords = knownWords.toArray(new String[0]);
+    }
+
+    @Override
+    public boolean checkWord(String checkedWord) {
+        return Arrays.stream(knownWords)
+                     .anyMatch(knownWord -> knownWord.equalsIgnoreCase(checkedWord));
+    }
+}
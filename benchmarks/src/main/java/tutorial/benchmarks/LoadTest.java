@@ -0,0 +1,138 @@
+package tutorial.benchmarks;
+
+import tutorial.example11.SpellCheckClient;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local load test of the spell checking server. Every connection is driven
+ * by its own thread, which sends batches of pipelined requests, as many as
+ * the pipeline depth, for the given time. The requests check words or
+ * passages made up of the words of the English dictionary and misspellings
+ * of them. When all threads are done, the throughput and the percentiles of
+ * the batch round-trip times are printed. Usage:
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar tutorial.benchmarks.LoadTest [words|passages] [connections] [depth] [seconds] [port]
+ * </pre>
+ */
+public final class LoadTest {
+
+    // Port the server listens on by default
+    private static final int DEFAULT_PORT = 7007;
+    private static final String[] WORDS = {"welcome", "to", "the", "universe", "wellcome", "teh", "universal", "too"};
+    // Number of words of a checked passage
+    private static final int PASSAGE_WORDS = 64;
+
+    private LoadTest() {
+        // Run from the command line only
+    }
+
+    /**
+     * Runs the load test against the server on the local host
+     * @param args the type of the requests, the number of connections, the
+     *             pipeline depth, the duration in seconds and the port of the server
+     * @throws Exception if a connection fails
+     */
+    public static void main(String[] args) throws Exception {
+        boolean passages = args.length > 0 && "passages".equals(args[0]);
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : 32;
+        long seconds = args.length > 3 ? Long.parseLong(args[3]) : 10;
+        int port = args.length > 4 ? Integer.parseInt(args[4]) : DEFAULT_PORT;
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        Driver[] drivers = new Driver[connections];
+        for (int i = 0; i < connections; i++) {
+            drivers[i] = new Driver(port, requests(passages, depth, new Random(i)), passages, deadline);
+            drivers[i].thread.start();
+        }
+        int batches = 0;
+        long[] allLatencies = new long[0];
+        for (Driver driver : drivers) {
+            driver.thread.join();
+            if (driver.failure != null) {
+                throw driver.failure;
+            }
+            allLatencies = Arrays.copyOf(allLatencies, batches + driver.batches);
+            System.arraycopy(driver.latencies, 0, allLatencies, batches, driver.batches);
+            batches += driver.batches;
+        }
+        Arrays.sort(allLatencies);
+
+        long requests = (long) batches * depth;
+        System.out.printf("%s: %d connections, pipeline depth %d, %d s%n",
+                          passages ? "Passages" : "Words", connections, depth, seconds);
+        System.out.printf("%d requests, %.0f requests/s%n", requests, requests / (double) seconds);
+        if (batches > 0) {
+            System.out.printf("Batch round trip [us]: median %.1f, p90 %.1f, p99 %.1f, max %.1f%n",
+                              micros(percentile(allLatencies, 0.5)), micros(percentile(allLatencies, 0.9)),
+                              micros(percentile(allLatencies, 0.99)), micros(allLatencies[batches - 1]));
+        }
+    }
+
+    private static List<String> requests(boolean passages, int depth, Random random) {
+        List<String> requests = new ArrayList<>(depth);
+        for (int i = 0; i < depth; i++) {
+            if (!passages) {
+                requests.add(WORDS[random.nextInt(WORDS.length)]);
+                continue;
+            }
+            StringBuilder passage = new StringBuilder();
+            for (int j = 0; j < PASSAGE_WORDS; j++) {
+                passage.append(j == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            requests.add(passage.append('.').toString());
+        }
+        return requests;
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(quantile * (sorted.length - 1)))];
+    }
+
+    private static double micros(long nanos) {
+        return nanos / (double) TimeUnit.MICROSECONDS.toNanos(1);
+    }
+
+    /**
+     * Connection sending the same batch of requests until the deadline
+     */
+    private static final class Driver {
+
+        private final Thread thread;
+        // Round-trip time of every batch
+        private long[] latencies = new long[1024];
+        private int batches = 0;
+        private Exception failure = null;
+
+        private Driver(int port, List<String> requests, boolean passages, long deadline) {
+            this.thread = new Thread(() -> run(port, requests, passages, deadline), "Ex11 load test");
+        }
+
+        private void run(int port, List<String> requests, boolean passages, long deadline) {
+            try (SpellCheckClient client = new SpellCheckClient("localhost", port)) {
+                long now = System.nanoTime();
+                while (now < deadline) {
+                    if (passages) {
+                        client.checkPassages(requests);
+                    } else {
+                        client.checkWords(requests);
+                    }
+                    long end = System.nanoTime();
+                    if (batches == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, batches * 2);
+                    }
+                    latencies[batches++] = end - now;
+                    now = end;
+                }
+            } catch (IOException exception) {
+                failure = exception;
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package tutorial.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tutorial.example2.service.DictionaryService;
+import tutorial.example6.service.SpellChecker;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link SpellChecker#checkPassage(String)} of every spell checker
+ * implementation, for different passage lengths, shares of correct words and
+ * dictionary implementations. The passage is checked against two dictionaries,
+ * like the English and the French one, and its words come from the first one
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SpellCheckerBenchmark {
+
+    private static final int DICTIONARY_SIZE = 100_000;
+
+    @Param({"EXAMPLE6", "EXAMPLE9"})
+    private SpellCheckerImplementation spellCheckerImplementation;
+
+    @Param({"HASHED", "AUTOMATON"})
+    private Implementation dictionaryImplementation;
+
+    @Param({"100", "10000", "1000000"})
+    private int passageLength;
+
+    @Param({"0.5", "0.95"})
+    private double hitRatio;
+
+    @Param({"sequential", "parallel"})
+    private String mode;
+
+    private SpellChecker spellChecker;
+    private String passage;
+
+    /**
+     * Builds the dictionaries, the spell checker and the passage
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        List<String> words = Words.dictionary(DICTIONARY_SIZE, random);
+        Map<DictionaryService, String> dictionaries = new LinkedHashMap<>();
+        dictionaries.put(dictionaryImplementation.create(words), "English");
+        dictionaries.put(dictionaryImplementation.create(Words.dictionary(DICTIONARY_SIZE, random)), "French");
+        int parallelThreshold = "parallel".equals(mode) ? 0 : Integer.MAX_VALUE;
+        spellChecker = spellCheckerImplementation.create(dictionaries, parallelThreshold);
+        passage = Words.passage(words, passageLength, hitRatio, random);
+    }
+
+    /**
+     * Checks the passage
+     * @return the misspelled words, consumed by the harness
+     */
+    @Benchmark
+    public String[] checkPassage() {
+        return spellChecker.checkPassage(passage);
+    }
+}
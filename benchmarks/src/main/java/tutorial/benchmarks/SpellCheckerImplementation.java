@@ -0,0 +1,45 @@
+package tutorial.benchmarks;
+
+import tutorial.example2.service.DictionaryService;
+import tutorial.example6.SpellCheckers;
+import tutorial.example6.service.SpellChecker;
+import tutorial.example9.SpellCheckImpl;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * The benchmarked spell checker service implementations
+ */
+public enum SpellCheckerImplementation {
+
+    EXAMPLE6 {
+        @Override
+        SpellChecker create(Map<DictionaryService, String> dictionaries, int parallelThreshold) {
+            return SpellCheckers.create(dictionaries, parallelThreshold);
+        }
+    },
+    EXAMPLE9 {
+        @Override
+        SpellChecker create(Map<DictionaryService, String> dictionaries, int parallelThreshold) {
+            // Bind the dictionaries the same way the Service Component Runtime does
+            List<Map.Entry<Map<String, Object>, DictionaryService>> services =
+                    dictionaries.entrySet()
+                                .stream()
+                                .map(entry -> Map.entry(Map.<String, Object>of("Language", entry.getValue()),
+                                                        entry.getKey()))
+                                .collect(Collectors.toList());
+            return new SpellCheckImpl(services);
+        }
+    };
+
+    /**
+     * Creates a spell checker using the given dictionaries
+     * @param dictionaries the dictionaries mapped to their languages
+     * @param parallelThreshold the length of a passage, in characters, from
+     *                          which on it is checked in parallel, if supported
+     * @return the spell checker
+     */
+    abstract SpellChecker create(Map<DictionaryService, String> dictionaries, int parallelThreshold);
+}
@@ -0,0 +1,92 @@
+package tutorial.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates reproducible benchmark data: dictionaries of pseudo-words
+ * and streams of checked words with a given share of dictionary hits
+ */
+final class Words {
+
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+    private static final String PUNCTUATION = ",.!?;:";
+
+    private Words() {
+        // Utility class
+    }
+
+    /**
+     * Generates the given number of distinct pseudo-words, 3 to 12 letters long
+     * @param size the number of words
+     * @param random the source of randomness
+     * @return the generated words
+     */
+    static List<String> dictionary(int size, Random random) {
+        Set<String> words = new HashSet<>(size * 2);
+        while (words.size() < size) {
+            words.add(word(3 + random.nextInt(10), random));
+        }
+        return new ArrayList<>(words);
+    }
+
+    /**
+     * Generates checked words, each of which is a dictionary word with
+     * the given probability and a word missing from the dictionary otherwise.
+     * Some of the words are capitalized, as in a real text
+     * @param dictionary the words of the dictionary
+     * @param count the number of checked words
+     * @param hitRatio the share of the checked words contained in the dictionary
+     * @param random the source of randomness
+     * @return the checked words
+     */
+    static String[] checked(List<String> dictionary, int count, double hitRatio, Random random) {
+        Set<String> known = new HashSet<>(dictionary);
+        String[] words = new String[count];
+        for (int i = 0; i < count; i++) {
+            String word;
+            if (random.nextDouble() < hitRatio) {
+                word = dictionary.get(random.nextInt(dictionary.size()));
+            } else {
+                do {
+                    word = word(3 + random.nextInt(10), random);
+                } while (known.contains(word));
+            }
+            words[i] = random.nextInt(8) == 0 ? word.substring(0, 1).toUpperCase(Locale.ROOT) + word.substring(1) : word;
+        }
+        return words;
+    }
+
+    /**
+     * Generates a passage of about the given length, made of checked words
+     * separated by spaces and, now and then, punctuation marks
+     * @param dictionary the words of the dictionary
+     * @param length the minimal length of the passage, in characters
+     * @param hitRatio the share of the words of the passage contained in the dictionary
+     * @param random the source of randomness
+     * @return the passage
+     */
+    static String passage(List<String> dictionary, int length, double hitRatio, Random random) {
+        StringBuilder passage = new StringBuilder(length + 16);
+        while (passage.length() < length) {
+            passage.append(checked(dictionary, 1, hitRatio, random)[0]);
+            if (random.nextInt(10) == 0) {
+                passage.append(PUNCTUATION.charAt(random.nextInt(PUNCTUATION.length())));
+            }
+            passage.append(' ');
+        }
+        return passage.toString();
+    }
+
+    private static String word(int length, Random random) {
+        char[] word = new char[length];
+        for (int i = 0; i < length; i++) {
+            word[i] = LETTERS.charAt(random.nextInt(LETTERS.length()));
+        }
+        return new String(word);
+    }
+}
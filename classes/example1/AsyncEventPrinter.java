@@ -0,0 +1,124 @@
+package tutorial.example1;
+
+import org.osgi.framework.ServiceEvent;
+import org.osgi.framework.ServiceListener;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Service listener that prints the details of service events on its own
+ * thread, so that the framework's event delivery isn't slowed down by
+ * printing. The listener only puts the event into a bounded queue, without
+ * locking; the printer thread takes the queued events in batches and writes
+ * them through a buffer, flushing it whenever the queue runs empty. If the
+ * events arrive faster than they can be printed and the queue is full, the
+ * new events are dropped and counted instead of blocking the framework
+ */
+class AsyncEventPrinter implements ServiceListener {
+
+    private static final Logger LOGGER = Logger.getLogger(AsyncEventPrinter.class.getName());
+
+    // Maximal number of events printed before the buffer is flushed
+    private static final int BATCH_SIZE = 256;
+    // How long the idle printer thread sleeps if it isn't woken up
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final int capacity;
+    private final Queue<String> queue = new ConcurrentLinkedQueue<>();
+    // Number of events in the queue, which bounds the queue
+    private final AtomicInteger queued = new AtomicInteger();
+    // Number of events dropped because the queue was full
+    private final LongAdder dropped = new LongAdder();
+    private final Thread printer;
+    private volatile boolean running = true;
+
+    /**
+     * Creates a listener with a queue of the given capacity
+     * and starts its printer thread
+     * @param capacity the maximal number of events waiting to be printed
+     */
+    AsyncEventPrinter(int capacity) {
+        this.capacity = capacity;
+        this.printer = new Thread(this::printEvents, "Ex1 service event printer");
+        printer.setDaemon(true);
+        printer.start();
+    }
+
+    /**
+     * Queues the details of the service event to be printed
+     * @param event the fired service event
+     */
+    @Override
+    public void serviceChanged(ServiceEvent event) {
+        String message = Activator.describe(event);
+        if (message == null) {
+            return;
+        }
+        int queuedCount = queued.incrementAndGet();
+        if (queuedCount > capacity) {
+            queued.decrementAndGet();
+            dropped.increment();
+            return;
+        }
+        queue.offer(message);
+        // Wake up the printer if it may have run out of events
+        if (queuedCount == 1) {
+            LockSupport.unpark(printer);
+        }
+    }
+
+    /**
+     * Returns the number of events dropped because the queue was full
+     * @return the number of dropped events
+     */
+    long droppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Prints the events that are still queued and stops the printer thread
+     * @throws InterruptedException if interrupted while waiting for the printer thread
+     */
+    void close() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(printer);
+        printer.join();
+    }
+
+    private void printEvents() {
+        // System.out itself isn't closed; the writer is only flushed
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out));
+        try {
+            while (running || !queue.isEmpty()) {
+                int printed = 0;
+                String message;
+                while (printed < BATCH_SIZE && (message = queue.poll()) != null) {
+                    queued.decrementAndGet();
+                    out.write(message);
+                    out.write(System.lineSeparator());
+                    printed++;
+                }
+                if (queue.isEmpty()) {
+                    out.flush();
+                    if (running) {
+                        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    }
+                }
+            }
+            out.flush();
+        } catch (IOException exception) {
+            LOGGER.log(Level.SEVERE, exception.getMessage(), exception);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package tutorial.example10;
+
+import java.util.Map;
+
+/**
+ * Management interface through which the metrics of an instrumented
+ * service are published over JMX, under the object name
+ * {@code tutorial.example10:type=InstrumentedService,id=<service.id>},
+ * where the ID is the one of the original service. The latencies are
+ * given in nanoseconds
+ */
+public interface InstrumentedServiceMXBean {
+
+    /**
+     * Returns the ID of the original service
+     * @return the service ID of the original service
+     */
+    long getServiceId();
+
+    /**
+     * Returns the names of the interfaces under which the service is registered
+     * @return the object classes of the service
+     */
+    String[] getObjectClass();
+
+    /**
+     * Returns the number of calls of every method of the service
+     * @return the numbers of calls, by method signature, such as {@code checkWord(String)}
+     */
+    Map<String, Long> getCallCounts();
+
+    /**
+     * Returns the number of calls that have thrown an exception
+     * @return the number of failed calls
+     */
+    long getFailureCount();
+
+    /**
+     * Returns the distribution of the latencies of every method of the service
+     * @return the distributions of the latencies, in nanoseconds, by method signature
+     */
+    Map<String, Distribution> getLatencies();
+
+    /**
+     * Returns the number of words looked up in the dictionary service
+     * @return the number of looked up words; 0 unless it is a dictionary service
+     */
+    long getCheckedWordCount();
+
+    /**
+     * Returns the number of words found in the dictionary service
+     * @return the number of found words; 0 unless it is a dictionary service
+     */
+    long getFoundWordCount();
+
+    /**
+     * Returns the share of the looked up words found in the dictionary service
+     * @return the hit ratio, or NaN if no words have been looked up
+     */
+    double getHitRatio();
+
+    /**
+     * Returns the distribution of the numbers of tokens of the checked passages
+     * @return the distribution of the numbers of tokens per passage;
+     *         empty unless it is a spell checker service
+     */
+    Distribution getTokensPerPassage();
+
+    /**
+     * Returns the number of misspelled words reported by the spell checker service
+     * @return the number of misspelled words; 0 unless it is a spell checker service
+     */
+    long getMisspelledWordCount();
+}
@@ -0,0 +1,178 @@
+package tutorial.example10;
+
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceEvent;
+import org.osgi.framework.ServiceListener;
+import org.osgi.framework.ServiceReference;
+import org.osgi.framework.hooks.service.EventListenerHook;
+import org.osgi.framework.hooks.service.FindHook;
+import org.osgi.framework.hooks.service.ListenerHook.ListenerInfo;
+import tutorial.example2.service.DictionaryService;
+import tutorial.example6.service.SpellChecker;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Instruments every dictionary and spell checker service: for each of them,
+ * an {@link InstrumentedService} is registered in its place. Other bundles
+ * should only use the instrumented copies, so the original services are
+ * hidden from them with service hooks: they neither find the originals
+ * nor receive their service events. Only this bundle and the framework
+ * itself still see the originals.
+ * <p>
+ * The originals registered before the instrumentation starts stay in use
+ * by the bundles that have already got them, so this bundle should be
+ * started before the dictionaries and the spell checker. Likewise, when this
+ * bundle stops, the bundles that only listen for service events aren't told
+ * about the originals again until these are registered anew
+ */
+final class Instrumenter implements ServiceListener, FindHook, EventListenerHook {
+
+    /**
+     * Filter matching the services to be instrumented and their proxies
+     */
+    static final String FILTER = "(|(" + Constants.OBJECTCLASS + "=" + DictionaryService.class.getName() + ")("
+                                 + Constants.OBJECTCLASS + "=" + SpellChecker.class.getName() + "))";
+
+    private final BundleContext context;
+    // Instrumented copies of the original services, by the references of the originals
+    private final Map<ServiceReference<?>, InstrumentedService> services = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an instrumenter registering the proxies through the given context
+     * @param context the framework context for the bundle
+     */
+    Instrumenter(BundleContext context) {
+        this.context = context;
+    }
+
+    /**
+     * Starts listening for the services to be instrumented and
+     * instruments the ones that are already registered
+     * @throws InvalidSyntaxException never, the filter is valid
+     */
+    void open() throws InvalidSyntaxException {
+        context.addServiceListener(this, FILTER);
+        ServiceReference<?>[] references = context.getServiceReferences((String) null, FILTER);
+        if (references != null) {
+            for (ServiceReference<?> reference : references) {
+                if (isOriginal(reference)) {
+                    instrument(reference);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops listening for services and unregisters all the proxies
+     */
+    void close() {
+        context.removeServiceListener(this);
+        services.values().forEach(InstrumentedService::unregister);
+        services.clear();
+    }
+
+    /**
+     * Returns the instrumented services
+     * @return the instrumented services, ordered by the IDs of the originals
+     */
+    List<InstrumentedService> services() {
+        List<InstrumentedService> instrumented = new ArrayList<>(services.values());
+        instrumented.sort(Comparator.comparingLong(InstrumentedService::getServiceId));
+        return instrumented;
+    }
+
+    /**
+     * Instruments the registered original services, keeps the properties of their
+     * proxies up to date and unregisters the proxies along with the originals
+     * @param event the fired service event
+     */
+    @Override
+    public void serviceChanged(ServiceEvent event) {
+        ServiceReference<?> reference = event.getServiceReference();
+        if (!isOriginal(reference)) {
+            return;
+        }
+        switch (event.getType()) {
+            case ServiceEvent.REGISTERED:
+                instrument(reference);
+                break;
+            case ServiceEvent.MODIFIED:
+                InstrumentedService instrumented = services.get(reference);
+                if (instrumented != null) {
+                    instrumented.modified();
+                } else {
+                    instrument(reference);
+                }
+                break;
+            case ServiceEvent.UNREGISTERING:
+                InstrumentedService removed = services.remove(reference);
+                if (removed != null) {
+                    removed.unregister();
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Hides the original services from the bundles looking them up
+     */
+    @Override
+    public void find(BundleContext finder, String name, String filter, boolean allServices,
+                     Collection<ServiceReference<?>> references) {
+        if (!isPrivileged(finder)) {
+            references.removeIf(Instrumenter::isOriginal);
+        }
+    }
+
+    /**
+     * Hides the events of the original services from the bundles listening for them
+     */
+    @Override
+    public void event(ServiceEvent event, Map<BundleContext, Collection<ListenerInfo>> listeners) {
+        if (isOriginal(event.getServiceReference())) {
+            listeners.keySet().removeIf(listener -> !isPrivileged(listener));
+        }
+    }
+
+    private void instrument(ServiceReference<?> reference) {
+        InstrumentedService instrumented = InstrumentedService.register(context, reference);
+        if (instrumented != null) {
+            services.put(reference, instrumented);
+        }
+    }
+
+    /**
+     * Tells whether the given service is an original one to be instrumented, rather than a proxy
+     */
+    private static boolean isOriginal(ServiceReference<?> reference) {
+        if (reference.getProperty(InstrumentedService.INSTRUMENTED_PROPERTY) != null) {
+            return false;
+        }
+        for (String objectClass : (String[]) reference.getProperty(Constants.OBJECTCLASS)) {
+            if (objectClass.equals(DictionaryService.class.getName())
+                || objectClass.equals(SpellChecker.class.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tells whether the given bundle context sees the original services,
+     * which is the case for this bundle and the system bundle
+     */
+    private boolean isPrivileged(BundleContext bundleContext) {
+        long bundleId = bundleContext.getBundle().getBundleId();
+        return bundleId == Constants.SYSTEM_BUNDLE_ID || bundleId == context.getBundle().getBundleId();
+    }
+}
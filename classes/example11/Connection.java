@@ -0,0 +1,231 @@
+package tutorial.example11;
+
+import tutorial.example2.service.DictionaryService;
+import tutorial.example6.service.SpellChecker;
+
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Connection of a client to the spell checking server, handled by a single
+ * selector loop. The requests are read into a direct buffer, and every read
+ * handles all complete requests of the buffer, so that pipelined requests
+ * are handled in batches; their responses are collected in another direct
+ * buffer and written together. While the responses can't be written as fast
+ * as they are produced, the connection stops reading requests, so that a
+ * client which doesn't read its responses can't make the buffers grow
+ */
+final class Connection {
+
+    private static final Logger LOGGER = Logger.getLogger(Connection.class.getName());
+
+    private static final int INITIAL_BUFFER_BYTES = 16 * 1024;
+
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final Supplier<SpellChecker> spellChecker;
+    private final Supplier<DictionaryService> dictionary;
+
+    // Received bytes not handled yet, ready to be filled
+    private ByteBuffer in = ByteBuffer.allocateDirect(INITIAL_BUFFER_BYTES);
+    // Responses not written yet, ready to be filled
+    private ByteBuffer out = ByteBuffer.allocateDirect(INITIAL_BUFFER_BYTES);
+    // Decoded payload of the current request
+    private CharBuffer chars = CharBuffer.allocate(INITIAL_BUFFER_BYTES);
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                                                                 .onMalformedInput(CodingErrorAction.REPORT)
+                                                                 .onUnmappableCharacter(CodingErrorAction.REPORT);
+
+    Connection(SocketChannel channel, SelectionKey key,
+               Supplier<SpellChecker> spellChecker, Supplier<DictionaryService> dictionary) {
+        this.channel = channel;
+        this.key = key;
+        this.spellChecker = spellChecker;
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Reads the available requests, handles the complete ones and writes their responses
+     * @throws IOException if the connection has failed or the client has sent an invalid frame
+     */
+    void onReadable() throws IOException {
+        if (channel.read(in) < 0) {
+            close();
+            return;
+        }
+        in.flip();
+        int needed = handleRequests();
+        in.compact();
+        if (needed > in.capacity()) {
+            // The next request doesn't fit in the buffer
+            ByteBuffer larger = ByteBuffer.allocateDirect(Math.max(needed, in.capacity() * 2));
+            in.flip();
+            larger.put(in);
+            in = larger;
+        }
+        write();
+    }
+
+    /**
+     * Writes the pending responses
+     * @throws IOException if the connection has failed
+     */
+    void onWritable() throws IOException {
+        write();
+    }
+
+    void close() {
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException exception) {
+            LOGGER.log(Level.FINE, exception.getMessage(), exception);
+        }
+    }
+
+    /**
+     * Handles the complete requests of the input buffer
+     * @return the size of the incomplete request left in the buffer, if any
+     */
+    private int handleRequests() throws ProtocolException {
+        while (in.remaining() >= Protocol.LENGTH_BYTES) {
+            int length = in.getInt(in.position());
+            if (length < 1 || length > Protocol.MAX_FRAME_BYTES) {
+                throw new ProtocolException("Invalid frame length " + length);
+            }
+            int frameBytes = Protocol.LENGTH_BYTES + length;
+            if (in.remaining() < frameBytes) {
+                return frameBytes;
+            }
+            int frameEnd = in.position() + frameBytes;
+            int limit = in.limit();
+            in.position(in.position() + Protocol.LENGTH_BYTES);
+            byte operation = in.get();
+            in.limit(frameEnd);
+            handleRequest(operation);
+            in.limit(limit).position(frameEnd);
+        }
+        return 0;
+    }
+
+    /**
+     * Handles a request, whose payload is the remainder of the input buffer
+     */
+    private void handleRequest(byte operation) {
+        if (!decodePayload()) {
+            respond(Protocol.BAD_REQUEST);
+            return;
+        }
+        try {
+            switch (operation) {
+                case Protocol.CHECK_WORD:
+                    checkWord();
+                    break;
+                case Protocol.CHECK_PASSAGE:
+                    checkPassage();
+                    break;
+                default:
+                    respond(Protocol.BAD_REQUEST);
+                    break;
+            }
+        } catch (RuntimeException exception) {
+            LOGGER.log(Level.WARNING, exception.getMessage(), exception);
+            respond(Protocol.FAILED);
+        }
+    }
+
+    private void checkWord() {
+        DictionaryService service = dictionary.get();
+        if (service == null) {
+            respond(Protocol.UNAVAILABLE);
+            return;
+        }
+        // The word is looked up directly in the decoded payload
+        boolean correct = service.checkWord(chars, 0, chars.length());
+        reserve(Protocol.LENGTH_BYTES + 2);
+        out.putInt(2).put(Protocol.OK).put((byte) (correct ? 1 : 0));
+    }
+
+    private void checkPassage() {
+        SpellChecker service = spellChecker.get();
+        if (service == null) {
+            respond(Protocol.UNAVAILABLE);
+            return;
+        }
+        String[] errors = service.checkPassage(chars.toString());
+        byte[][] encoded = new byte[errors == null ? 0 : errors.length][];
+        int length = 1 + Integer.BYTES;
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = errors[i].getBytes(StandardCharsets.UTF_8);
+            length += Integer.BYTES + encoded[i].length;
+        }
+        reserve(Protocol.LENGTH_BYTES + length);
+        out.putInt(length).put(Protocol.OK).putInt(encoded.length);
+        for (byte[] word : encoded) {
+            out.putInt(word.length).put(word);
+        }
+    }
+
+    private void respond(byte status) {
+        reserve(Protocol.LENGTH_BYTES + 1);
+        out.putInt(1).put(status);
+    }
+
+    /**
+     * Decodes the payload of the current request into the character buffer
+     * @return true if the payload is valid UTF-8,
+     *         false otherwise
+     */
+    private boolean decodePayload() {
+        // A UTF-8 encoded text has at most as many characters as bytes
+        if (chars.capacity() < in.remaining()) {
+            chars = CharBuffer.allocate(Math.max(in.remaining(), chars.capacity() * 2));
+        }
+        chars.clear();
+        decoder.reset();
+        CoderResult result = decoder.decode(in, chars, true);
+        if (result.isError()) {
+            return false;
+        }
+        decoder.flush(chars);
+        chars.flip();
+        return true;
+    }
+
+    /**
+     * Makes sure the output buffer has room for a response of the given size
+     */
+    private void reserve(int bytes) {
+        if (out.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocateDirect(Math.max(out.position() + bytes, out.capacity() * 2));
+            out.flip();
+            larger.put(out);
+            out = larger;
+        }
+    }
+
+    /**
+     * Writes as much of the pending responses as the socket accepts, and reads
+     * further requests only once all responses have been written
+     */
+    private void write() throws IOException {
+        out.flip();
+        channel.write(out);
+        boolean pending = out.hasRemaining();
+        out.compact();
+        if (key.isValid()) {
+            key.interestOps(pending ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package tutorial.example11;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Blocking client of the spell checking server. The requests of a call are
+ * pipelined: they are encoded into a direct buffer and sent together, and
+ * only then are the responses read, so that the whole batch costs about one
+ * round trip. A batch larger than the buffer is sent in several rounds,
+ * which keeps the responses the server has to hold back bounded. A client
+ * mustn't be shared between threads
+ */
+public final class SpellCheckClient implements Closeable {
+
+    // Size of the requests sent in a single round
+    private static final int ROUND_BYTES = 64 * 1024;
+
+    private final SocketChannel channel;
+    // Requests of the current round, ready to be filled
+    private ByteBuffer out = ByteBuffer.allocateDirect(ROUND_BYTES);
+    // Received bytes not consumed yet, ready to be read
+    private ByteBuffer in = ByteBuffer.allocateDirect(ROUND_BYTES).flip();
+
+    /**
+     * Connects to the spell checking server
+     * @param host the host of the server
+     * @param port the port of the server
+     * @throws IOException if the connection can't be established
+     */
+    public SpellCheckClient(String host, int port) throws IOException {
+        channel = SocketChannel.open(new InetSocketAddress(host, port));
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+    }
+
+    /**
+     * Checks the given words against the dictionary service of the server
+     * @param words the words to check
+     * @return whether every word is correct
+     * @throws IOException if the server can't be reached or has failed to check a word
+     */
+    public boolean[] checkWords(List<String> words) throws IOException {
+        boolean[] correct = new boolean[words.size()];
+        int sent = 0;
+        while (sent < words.size()) {
+            int first = sent;
+            sent = sendRound(words, first, Protocol.CHECK_WORD);
+            byte failure = Protocol.OK;
+            for (int i = first; i < sent; i++) {
+                int length = readResponse();
+                if (length < 0) {
+                    failure = (byte) -length;
+                    continue;
+                }
+                require(length == 1, length);
+                correct[i] = in.get() == 1;
+            }
+            requireSuccess(failure);
+        }
+        return correct;
+    }
+
+    /**
+     * Checks the given passages with the spell checker service of the server
+     * @param passages the passages to check
+     * @return the misspelled words of every passage
+     * @throws IOException if the server can't be reached or has failed to check a passage
+     */
+    public List<String[]> checkPassages(List<String> passages) throws IOException {
+        List<String[]> errors = new ArrayList<>(passages.size());
+        int sent = 0;
+        while (sent < passages.size()) {
+            int first = sent;
+            sent = sendRound(passages, first, Protocol.CHECK_PASSAGE);
+            byte failure = Protocol.OK;
+            for (int i = first; i < sent; i++) {
+                int length = readResponse();
+                if (length < 0) {
+                    failure = (byte) -length;
+                    continue;
+                }
+                String[] words = new String[in.getInt()];
+                for (int j = 0; j < words.length; j++) {
+                    byte[] word = new byte[in.getInt()];
+                    in.get(word);
+                    words[j] = new String(word, StandardCharsets.UTF_8);
+                }
+                errors.add(words);
+            }
+            requireSuccess(failure);
+        }
+        return errors;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Sends the requests for the given texts, starting from the given one, that fit in a round
+     * @return the index after the last sent text
+     */
+    private int sendRound(List<String> texts, int first, byte operation) throws IOException {
+        out.clear();
+        int next = first;
+        while (next < texts.size()) {
+            byte[] payload = texts.get(next).getBytes(StandardCharsets.UTF_8);
+            int frameBytes = Protocol.LENGTH_BYTES + 1 + payload.length;
+            if (frameBytes - Protocol.LENGTH_BYTES > Protocol.MAX_FRAME_BYTES) {
+                throw new IllegalArgumentException("Text too long: " + payload.length + " bytes");
+            }
+            if (out.remaining() < frameBytes) {
+                if (next > first) {
+                    break;
+                }
+                // A single request larger than a round is sent alone
+                out = ByteBuffer.allocateDirect(frameBytes);
+            }
+            out.putInt(1 + payload.length).put(operation).put(payload);
+            next++;
+        }
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        return next;
+    }
+
+    /**
+     * Reads a whole response and its status. The responses to all requests of a round
+     * are read even if some have failed, so that the next round starts with its own
+     * @return the length of the result, which is left in the input buffer,
+     *         or the negated status if the request has failed
+     */
+    private int readResponse() throws IOException {
+        fill(Protocol.LENGTH_BYTES);
+        int length = in.getInt();
+        require(length >= 1 && length <= Protocol.MAX_FRAME_BYTES, length);
+        fill(length);
+        byte status = in.get();
+        if (status != Protocol.OK) {
+            in.position(in.position() + length - 1);
+            return -status;
+        }
+        return length - 1;
+    }
+
+    private static void requireSuccess(byte status) throws IOException {
+        if (status != Protocol.OK) {
+            throw new IOException("Request failed with status " + status);
+        }
+    }
+
+    /**
+     * Reads until the input buffer holds at least the given number of bytes
+     */
+    private void fill(int bytes) throws IOException {
+        if (in.remaining() >= bytes) {
+            return;
+        }
+        if (in.capacity() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocateDirect(Math.max(bytes, in.capacity() * 2));
+            larger.put(in);
+            in = larger;
+        } else {
+            in.compact();
+        }
+        while (in.position() < bytes) {
+            if (channel.read(in) < 0) {
+                throw new EOFException("Connection closed by the server");
+            }
+        }
+        in.flip();
+    }
+
+    private static void require(boolean valid, int length) throws ProtocolException {
+        if (!valid) {
+            throw new ProtocolException("Invalid response length " + length);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package tutorial.example11;
+
+import tutorial.example2.service.DictionaryService;
+import tutorial.example6.service.SpellChecker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Server checking words and passages sent over TCP connections of the local
+ * host. The connections are non-blocking and multiplexed over a few selector
+ * loops, each running on its own thread: the first loop also accepts the
+ * connections and hands them out to the loops in turn, and every connection
+ * is then handled by a single loop for its whole life. A loop thus serves many
+ * clients with no thread per client and without any locking, while the loops
+ * together keep as many processors busy checking as there are loops. The
+ * requests are handled with the services available at the time, so the
+ * server keeps running while the services come and go
+ */
+final class SpellCheckServer {
+
+    private static final Logger LOGGER = Logger.getLogger(SpellCheckServer.class.getName());
+
+    // How long stopping the server waits for every loop to finish
+    private static final long STOP_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(1);
+
+    private final Supplier<SpellChecker> spellChecker;
+    private final Supplier<DictionaryService> dictionary;
+    private final ServerSocketChannel serverChannel;
+    private final SelectorLoop[] loops;
+    // Index of the loop the next accepted connection is handed to
+    private int nextLoop = 0;
+
+    /**
+     * Binds the server to the given port of the loopback address and starts the loops
+     * @param port the port to listen on, or 0 for any free port
+     * @param loopCount the number of the selector loops, at least one
+     * @param spellChecker supplies the spell checker service, or null if none is available
+     * @param dictionary supplies the dictionary service, or null if none is available
+     * @throws IOException if the server can't be bound to the port
+     * @throws IllegalArgumentException if the loop count is lower than one
+     */
+    SpellCheckServer(int port, int loopCount,
+                     Supplier<SpellChecker> spellChecker, Supplier<DictionaryService> dictionary) throws IOException {
+        if (loopCount < 1) {
+            throw new IllegalArgumentException("At least one selector loop is required, got " + loopCount);
+        }
+        this.spellChecker = spellChecker;
+        this.dictionary = dictionary;
+        this.serverChannel = ServerSocketChannel.open();
+        this.loops = new SelectorLoop[loopCount];
+        try {
+            serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            serverChannel.configureBlocking(false);
+            for (int i = 0; i < loopCount; i++) {
+                loops[i] = new SelectorLoop("Ex11 selector loop " + i);
+            }
+            serverChannel.register(loops[0].selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException exception) {
+            // None of the loops has started yet
+            closeQuietly(serverChannel);
+            for (SelectorLoop loop : loops) {
+                if (loop != null) {
+                    closeQuietly(loop.selector);
+                }
+            }
+            throw exception;
+        }
+        for (SelectorLoop loop : loops) {
+            loop.thread.start();
+        }
+    }
+
+    /**
+     * Returns the port the server listens on
+     * @return the local port of the server
+     */
+    int port() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Stops accepting connections, closes the open ones and waits a while for the loops to finish
+     * @throws InterruptedException if interrupted while waiting for the loops
+     */
+    void stop() throws InterruptedException {
+        close();
+        for (SelectorLoop loop : loops) {
+            loop.thread.join(STOP_TIMEOUT_MILLIS);
+        }
+    }
+
+    private void close() {
+        closeQuietly(serverChannel);
+        for (SelectorLoop loop : loops) {
+            loop.close();
+        }
+    }
+
+    /**
+     * Accepts the pending connections. Only called by the first loop
+     */
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            // Responses are written in batches already, so they shouldn't be delayed further
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            loops[nextLoop].handOver(channel);
+            nextLoop = (nextLoop + 1) % loops.length;
+        }
+    }
+
+    /**
+     * Selector loop handling the events of its connections on its own thread
+     */
+    private final class SelectorLoop {
+
+        private final Selector selector;
+        private final Thread thread;
+        // Connections accepted for this loop, not registered with its selector yet
+        private final Queue<SocketChannel> handedOver = new ConcurrentLinkedQueue<>();
+        private volatile boolean running = true;
+
+        private SelectorLoop(String threadName) throws IOException {
+            this.selector = Selector.open();
+            this.thread = new Thread(this::run, threadName);
+            thread.setDaemon(true);
+        }
+
+        /**
+         * Hands a connection over to the loop, from the thread of any loop
+         */
+        private void handOver(SocketChannel channel) {
+            handedOver.add(channel);
+            // The channel can only be registered while the selector isn't selecting
+            selector.wakeup();
+        }
+
+        private void close() {
+            running = false;
+            selector.wakeup();
+        }
+
+        private void run() {
+            try {
+                while (running) {
+                    selector.select();
+                    registerHandedOver();
+                    for (SelectionKey key : selector.selectedKeys()) {
+                        handle(key);
+                    }
+                    selector.selectedKeys().clear();
+                }
+            } catch (IOException | ClosedSelectorException exception) {
+                LOGGER.log(Level.SEVERE, exception.getMessage(), exception);
+            } finally {
+                closeConnections();
+            }
+        }
+
+        private void registerHandedOver() {
+            SocketChannel channel;
+            while ((channel = handedOver.poll()) != null) {
+                try {
+                    SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                    key.attach(new Connection(channel, key, spellChecker, dictionary));
+                } catch (IOException exception) {
+                    LOGGER.log(Level.WARNING, exception.getMessage(), exception);
+                    closeQuietly(channel);
+                }
+            }
+        }
+
+        private void handle(SelectionKey key) {
+            if (!key.isValid()) {
+                return;
+            }
+            if (key.isAcceptable()) {
+                try {
+                    accept();
+                } catch (IOException exception) {
+                    // The connection being accepted is lost, but the server keeps running
+                    LOGGER.log(Level.WARNING, exception.getMessage(), exception);
+                }
+                return;
+            }
+            Connection connection = (Connection) key.attachment();
+            try {
+                if (key.isReadable()) {
+                    connection.onReadable();
+                } else if (key.isWritable()) {
+                    connection.onWritable();
+                }
+            } catch (IOException exception) {
+                // Only this client is affected, e.g. it has reset the connection or sent an invalid frame
+                LOGGER.log(Level.FINE, exception.getMessage(), exception);
+                connection.close();
+            }
+        }
+
+        private void closeConnections() {
+            try {
+                for (SelectionKey key : selector.keys()) {
+                    if (key.attachment() instanceof Connection) {
+                        ((Connection) key.attachment()).close();
+                    }
+                }
+                selector.close();
+            } catch (IOException | ClosedSelectorException exception) {
+                LOGGER.log(Level.FINE, exception.getMessage(), exception);
+            }
+            handedOver.forEach(SpellCheckServer::closeQuietly);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException exception) {
+            LOGGER.log(Level.FINE, exception.getMessage(), exception);
+        }
+    }
+}
@@ -1,22 +1,17 @@
 package tutorial.example2;
 
-import tutorial.example2.service.DictionaryService;
+import tutorial.example2.dictionary.HashedDictionary;
 
-import java.util.Arrays;
+/**
+ * English dictionary. The words are folded and indexed once, when the
+ * dictionary is created, so that checking a word doesn't iterate over
+ * the whole dictionary
+ */
+class DictionaryServiceImpl extends HashedDictionary {
 
-class DictionaryServiceImpl implements DictionaryService {
+    static final String[] KNOWN_WORDS = {"welcome", "to", "the", "universe"};
 
-    private final String[] knownWords = {"welcome", "to", "the", "universe"};
-
-    /**
-     * Determines if the passed in word is contained in the dictionary.
-     * @param checkedWord the word to be checked
-     * @return true if the word is in the dictionary,
-     *         false otherwise
-     */
-    @Override
-    public boolean checkWord(String checkedWord) {
-        return Arrays.stream(knownWords)
-                     .anyMatch(knownWord -> knownWord.equalsIgnoreCase(checkedWord));
+    DictionaryServiceImpl() {
+        super(KNOWN_WORDS);
     }
 }
@@ -0,0 +1,185 @@
+package tutorial.example2.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Loop prompting for lines of standard input and handing them to a client.
+ * A bundle activator starting its interaction with the user through this loop
+ * returns right away, instead of holding up the framework until the user is
+ * done, and cancels the loop when it stops.
+ * <p>
+ * Standard input is read in a single place: all loops share one reader, run on
+ * a platform daemon thread, so that no loop can take lines meant for another
+ * one. The loops are stacked: every line goes to the most recently started one,
+ * until the user enters a blank line or the loop is cancelled, after which the
+ * lines go to the loop started before it again. The handlers are run on the
+ * reader thread, one line at a time.
+ * <p>
+ * The reader only reads the bytes already available, one line at a time, and
+ * stops as soon as no loop is running, so that the lines entered afterwards,
+ * e.g. the commands of the framework shell, are left to other readers of
+ * standard input. The next started loop starts a new reader. All loops end
+ * when standard input is closed
+ */
+public final class ConsoleLoop {
+
+    private static final Logger LOGGER = Logger.getLogger(ConsoleLoop.class.getName());
+
+    // How long the cancellation waits for the handling of the current line to finish
+    private static final long CANCEL_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(1);
+    // How long the reader waits before looking for more input again
+    private static final long POLL_MILLIS = 50;
+
+    // Guards the loops and the reader thread
+    private static final Object LOCK = new Object();
+    // The running loops, the most recently started first
+    private static final Deque<ConsoleLoop> LOOPS = new ArrayDeque<>();
+    // The loop whose handler is handling a line, if any
+    private static ConsoleLoop handling = null;
+    // The thread reading standard input while any loop is running
+    private static Thread reader = null;
+
+    private final String prompt;
+    private final Consumer<String> handler;
+
+    private ConsoleLoop(String prompt, Consumer<String> handler) {
+        this.prompt = prompt;
+        this.handler = handler;
+    }
+
+    /**
+     * Starts a loop that prompts for lines and hands them
+     * to the given handler until a blank line is entered
+     * @param prompt the prompt printed before reading every line
+     * @param handler the handler of the non-blank lines
+     * @return the running loop
+     */
+    public static ConsoleLoop start(String prompt, Consumer<String> handler) {
+        ConsoleLoop loop = new ConsoleLoop(prompt, handler);
+        synchronized (LOCK) {
+            LOOPS.push(loop);
+            System.out.println("Enter a blank line to exit");
+            System.out.println(prompt);
+            if (reader == null) {
+                reader = new Thread(ConsoleLoop::read, "Console reader");
+                reader.setDaemon(true);
+                reader.start();
+            }
+        }
+        return loop;
+    }
+
+    /**
+     * Stops the loop and waits a while for the line being handled by it, if any
+     * @throws InterruptedException if interrupted while waiting for the line to be handled
+     */
+    public void cancel() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CANCEL_TIMEOUT_MILLIS);
+        synchronized (LOCK) {
+            boolean wasActive = LOOPS.peek() == this;
+            if (LOOPS.remove(this) && wasActive) {
+                promptActive();
+            }
+            long remaining;
+            while (handling == this && (remaining = deadline - System.nanoTime()) > 0) {
+                TimeUnit.NANOSECONDS.timedWait(LOCK, remaining);
+            }
+        }
+    }
+
+    /**
+     * Reads standard input while any loop is running and hands every line to the
+     * most recently started loop. Only the available bytes are read, so that the
+     * reader never blocks and never reads past the end of a line once no loop
+     * is running anymore
+     */
+    private static void read() {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        try {
+            while (true) {
+                synchronized (LOCK) {
+                    if (LOOPS.isEmpty()) {
+                        reader = null;
+                        return;
+                    }
+                }
+                if (System.in.available() == 0) {
+                    Thread.sleep(POLL_MILLIS);
+                    continue;
+                }
+                int next = System.in.read();
+                if (next < 0) {
+                    break;
+                }
+                if (next == '\n') {
+                    handle(decode(line));
+                    line.reset();
+                } else {
+                    line.write(next);
+                }
+            }
+        } catch (IOException exception) {
+            LOGGER.log(Level.SEVERE, exception.getMessage(), exception);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        // Standard input has ended, so no loop can get any more lines
+        synchronized (LOCK) {
+            LOOPS.clear();
+            reader = null;
+        }
+    }
+
+    private static String decode(ByteArrayOutputStream line) {
+        String decoded = line.toString(Charset.defaultCharset());
+        return decoded.endsWith("\r") ? decoded.substring(0, decoded.length() - 1) : decoded;
+    }
+
+    private static void handle(String line) {
+        ConsoleLoop loop;
+        synchronized (LOCK) {
+            loop = LOOPS.peek();
+            if (loop == null) {
+                // No client is interacting with the user
+                return;
+            }
+            // If the user entered a blank line, then exit the loop
+            if (line.isEmpty()) {
+                LOOPS.pop();
+                promptActive();
+                return;
+            }
+            handling = loop;
+        }
+        try {
+            loop.handler.accept(line);
+        } catch (RuntimeException exception) {
+            // The other loops keep getting their lines
+            LOGGER.log(Level.SEVERE, exception.getMessage(), exception);
+        } finally {
+            synchronized (LOCK) {
+                handling = null;
+                LOCK.notifyAll();
+                promptActive();
+            }
+        }
+    }
+
+    /**
+     * Prompts for the next line of the loop that gets it, if any
+     */
+    private static void promptActive() {
+        ConsoleLoop active = LOOPS.peek();
+        if (active != null) {
+            System.out.println(active.prompt);
+        }
+    }
+}
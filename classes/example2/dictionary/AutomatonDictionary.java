@@ -0,0 +1,311 @@
+package tutorial.example2.dictionary;
+
+import tutorial.example2.service.PrefixDictionaryService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Dictionary service backed by a minimal acyclic deterministic finite-state
+ * automaton. Words sharing a prefix share the states of the prefix and words
+ * sharing a suffix share the states of the suffix, so that a natural-language
+ * word list shrinks to a fraction of its size. Checking a word costs a single
+ * walk over its characters, whatever the size of the dictionary is.
+ * <p>
+ * The automaton is built with the incremental algorithm for sorted input by
+ * Daciuk et al. and then frozen into a few flat arrays: the outgoing arcs of
+ * every state are stored next to each other, sorted by their labels.
+ * Instances are immutable and can be shared between threads
+ */
+public class AutomatonDictionary extends FoldedDictionary implements PrefixDictionaryService {
+
+    // Index of the first outgoing arc of every state; the state s owns arcs firstArcs[s] to firstArcs[s + 1]
+    private final int[] firstArcs;
+    // Label of every arc, sorted within the arcs of a state
+    private final char[] arcLabels;
+    // Target state of every arc
+    private final int[] arcTargets;
+    // Whether a state ends a word
+    private final boolean[] finalStates;
+    // Number of distinct words in the dictionary
+    private final int size;
+
+    /**
+     * Creates a dictionary that contains the given words
+     * @param words the words of the dictionary
+     */
+    public AutomatonDictionary(String... words) {
+        this(Arrays.asList(words));
+    }
+
+    /**
+     * Creates a dictionary that contains the given words
+     * @param words the words of the dictionary
+     */
+    public AutomatonDictionary(Collection<String> words) {
+        List<String> sortedWords = words.stream()
+                                        .map(CaseFolding::fold)
+                                        .sorted()
+                                        .distinct()
+                                        .collect(Collectors.toList());
+        Builder builder = new Builder();
+        sortedWords.forEach(builder::add);
+        State root = builder.finish();
+
+        // Number the states, so that the root is the state 0
+        Map<State, Integer> numbers = new IdentityHashMap<>();
+        List<State> states = new ArrayList<>();
+        numbers.put(root, 0);
+        states.add(root);
+        int arcsCount = 0;
+        for (int i = 0; i < states.size(); i++) {
+            State state = states.get(i);
+            arcsCount += state.size;
+            for (int arc = 0; arc < state.size; arc++) {
+                if (!numbers.containsKey(state.targets[arc])) {
+                    numbers.put(state.targets[arc], states.size());
+                    states.add(state.targets[arc]);
+                }
+            }
+        }
+
+        // Freeze the states into flat arrays
+        this.firstArcs = new int[states.size() + 1];
+        this.arcLabels = new char[arcsCount];
+        this.arcTargets = new int[arcsCount];
+        this.finalStates = new boolean[states.size()];
+        int arcIndex = 0;
+        for (int i = 0; i < states.size(); i++) {
+            State state = states.get(i);
+            firstArcs[i] = arcIndex;
+            finalStates[i] = state.isFinal;
+            for (int arc = 0; arc < state.size; arc++, arcIndex++) {
+                arcLabels[arcIndex] = state.labels[arc];
+                arcTargets[arcIndex] = numbers.get(state.targets[arc]);
+            }
+        }
+        firstArcs[states.size()] = arcIndex;
+        this.size = sortedWords.size();
+    }
+
+    /**
+     * Returns the number of distinct words in the dictionary
+     * @return the number of distinct words in the dictionary
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of states of the automaton
+     * @return the number of states of the automaton
+     */
+    public int stateCount() {
+        return finalStates.length;
+    }
+
+    /**
+     * Lists the words of the dictionary starting with a given prefix,
+     * in lexicographic order. The words are returned in the folded form
+     * @param prefix the prefix of the listed words
+     * @param limit the maximal number of listed words
+     * @return the words starting with the prefix; empty if there are none
+     */
+    @Override
+    public List<String> wordsStartingWith(String prefix, int limit) {
+        int state = walk(prefix, 0, prefix.length());
+        if (state < 0 || limit <= 0) {
+            return Collections.emptyList();
+        }
+        List<String> words = new ArrayList<>();
+        StringBuilder word = new StringBuilder(CaseFolding.fold(prefix));
+        collect(state, word, words, limit);
+        return words;
+    }
+
+    @Override
+    public void forEachWord(Consumer<? super CharSequence> action) {
+        visit(0, new StringBuilder(), action);
+    }
+
+    @Override
+    protected boolean contains(CharSequence text, int start, int end) {
+        int state = walk(text, start, end);
+        return state >= 0 && finalStates[state];
+    }
+
+    /**
+     * Follows the arcs labelled with the folded characters of the given range
+     * @return the reached state or -1 if there is no such path
+     */
+    private int walk(CharSequence text, int start, int end) {
+        int state = 0;
+        for (int i = start; i < end && state >= 0; i++) {
+            state = target(state, CaseFolding.fold(text.charAt(i)));
+        }
+        return state;
+    }
+
+    /**
+     * Finds the target of the arc leaving the given state with the given label
+     * @return the target state or -1 if there is no such arc
+     */
+    private int target(int state, char label) {
+        int low = firstArcs[state];
+        int high = firstArcs[state + 1] - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (arcLabels[middle] < label) {
+                low = middle + 1;
+            } else if (arcLabels[middle] > label) {
+                high = middle - 1;
+            } else {
+                return arcTargets[middle];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Passes the words reachable from the given state, prefixed with the given word, to the action
+     */
+    private void visit(int state, StringBuilder word, Consumer<? super CharSequence> action) {
+        if (finalStates[state]) {
+            action.accept(word);
+        }
+        for (int arc = firstArcs[state]; arc < firstArcs[state + 1]; arc++) {
+            word.append(arcLabels[arc]);
+            visit(arcTargets[arc], word, action);
+            word.setLength(word.length() - 1);
+        }
+    }
+
+    /**
+     * Collects, in depth-first order, the words reachable from the given state
+     */
+    private void collect(int state, StringBuilder word, List<String> words, int limit) {
+        if (finalStates[state]) {
+            words.add(word.toString());
+        }
+        for (int arc = firstArcs[state]; arc < firstArcs[state + 1] && words.size() < limit; arc++) {
+            word.append(arcLabels[arc]);
+            collect(arcTargets[arc], word, words, limit);
+            word.setLength(word.length() - 1);
+        }
+    }
+
+    /**
+     * State of the automaton while it is being built. Once a state is
+     * registered as unique it is never modified again, so it can be
+     * compared with other states by its content
+     */
+    private static final class State {
+
+        private char[] labels = new char[0];
+        private State[] targets = new State[0];
+        private int size;
+        private boolean isFinal;
+
+        private State lastChild() {
+            return targets[size - 1];
+        }
+
+        private State addArc(char label) {
+            if (size == labels.length) {
+                labels = Arrays.copyOf(labels, Math.max(2, size * 2));
+                targets = Arrays.copyOf(targets, Math.max(2, size * 2));
+            }
+            State target = new State();
+            labels[size] = label;
+            targets[size++] = target;
+            return target;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof State)) {
+                return false;
+            }
+            State state = (State) other;
+            if (isFinal != state.isFinal || size != state.size) {
+                return false;
+            }
+            for (int i = 0; i < size; i++) {
+                // The targets are already unique, so they are compared by identity
+                if (labels[i] != state.labels[i] || targets[i] != state.targets[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = isFinal ? 1 : 0;
+            for (int i = 0; i < size; i++) {
+                hash = 31 * hash + labels[i];
+                hash = 31 * hash + System.identityHashCode(targets[i]);
+            }
+            return hash;
+        }
+    }
+
+    /**
+     * Builds a minimal automaton from words added in lexicographic order
+     */
+    private static final class Builder {
+
+        private final State root = new State();
+        // Unique states that are no longer modified
+        private final Map<State, State> register = new HashMap<>();
+        private String previousWord = "";
+
+        private void add(String word) {
+            // Walk the prefix shared with the previous word
+            int prefixLength = 0;
+            State state = root;
+            while (prefixLength < word.length() && prefixLength < previousWord.length()
+                   && word.charAt(prefixLength) == previousWord.charAt(prefixLength)) {
+                state = state.lastChild();
+                prefixLength++;
+            }
+            // The suffix of the previous word won't change anymore, so it can be minimized
+            if (state.size > 0) {
+                replaceOrRegister(state);
+            }
+            // Append the suffix of the new word
+            for (int i = prefixLength; i < word.length(); i++) {
+                state = state.addArc(word.charAt(i));
+            }
+            state.isFinal = true;
+            previousWord = word;
+        }
+
+        private State finish() {
+            if (root.size > 0) {
+                replaceOrRegister(root);
+            }
+            return root;
+        }
+
+        private void replaceOrRegister(State state) {
+            State child = state.lastChild();
+            if (child.size > 0) {
+                replaceOrRegister(child);
+            }
+            State equivalent = register.putIfAbsent(child, child);
+            if (equivalent != null) {
+                state.targets[state.size - 1] = equivalent;
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package tutorial.example2.dictionary;
+
+/**
+ * Case folding and hashing rules shared by the dictionary engines.
+ * Words are folded the same way {@link String#equalsIgnoreCase(String)}
+ * compares characters, so a folded lookup gives the same answer
+ * as the original linear scan did
+ */
+public final class CaseFolding {
+
+    private CaseFolding() {
+        // Utility class
+    }
+
+    /**
+     * Folds a single character to its case-insensitive form
+     * @param character the character to be folded
+     * @return the folded character
+     */
+    public static char fold(char character) {
+        // Fast path for ASCII, which is the vast majority of the input
+        if (character < 0x80) {
+            return (character >= 'A' && character <= 'Z') ? (char) (character + ('a' - 'A')) : character;
+        }
+        return Character.toLowerCase(Character.toUpperCase(character));
+    }
+
+    /**
+     * Folds a whole word to its case-insensitive form
+     * @param word the word to be folded
+     * @return the folded word
+     */
+    public static String fold(CharSequence word) {
+        char[] folded = new char[word.length()];
+        for (int i = 0; i < folded.length; i++) {
+            folded[i] = fold(word.charAt(i));
+        }
+        return new String(folded);
+    }
+
+    /**
+     * Computes the hash of the folded form of the given range of characters,
+     * without materializing the folded form
+     * @param text the text containing the word
+     * @param start the index of the first character of the word
+     * @param end the index after the last character of the word
+     * @return the hash of the folded word
+     */
+    public static int hash(CharSequence text, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + fold(text.charAt(i));
+        }
+        return spread(hash);
+    }
+
+    /**
+     * Scatters the bits of a polynomial hash, so that the low bits used
+     * for indexing a power-of-two table depend on all the characters
+     * @param hash the raw hash
+     * @return the scattered hash
+     */
+    static int spread(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,129 @@
+package tutorial.example2.dictionary;
+
+import tutorial.example2.service.EnumerableDictionaryService;
+import tutorial.example2.service.WordFilter;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Base class of the dictionary engines that keep their words in the
+ * folded form defined by {@link CaseFolding}. A subclass only has to
+ * look up a range of characters; the service methods are built on top
+ * of that look-up, so that none of them has to convert the checked
+ * words to strings. Every engine can also summarize its words with
+ * a {@link BloomFilter}, to be published along with the service
+ */
+public abstract class FoldedDictionary implements EnumerableDictionaryService {
+
+    // Summary of the words, built on first use
+    private volatile WordFilter filter;
+
+    /**
+     * Determines if the passed in word is contained in the dictionary.
+     * The comparison is case-insensitive
+     * @param checkedWord the word to be checked
+     * @return true if the word is in the dictionary,
+     *         false otherwise
+     */
+    @Override
+    public boolean checkWord(String checkedWord) {
+        return checkedWord != null && contains(checkedWord, 0, checkedWord.length());
+    }
+
+    /**
+     * Determines which of the passed in words are contained in the
+     * dictionary. The words are looked up directly, without being
+     * converted to strings
+     * @param checkedWords the words to be checked
+     * @return set of the indexes of the words that are in the dictionary
+     */
+    @Override
+    public BitSet checkWords(List<? extends CharSequence> checkedWords) {
+        BitSet hits = new BitSet(checkedWords.size());
+        for (int i = 0; i < checkedWords.size(); i++) {
+            CharSequence checkedWord = checkedWords.get(i);
+            if (checkedWord != null && contains(checkedWord, 0, checkedWord.length())) {
+                hits.set(i);
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Determines if the given range of characters is a word contained
+     * in the dictionary. The comparison is case-insensitive
+     * @param text the text containing the word
+     * @param start the index of the first character of the word
+     * @param end the index after the last character of the word
+     * @return true if the word is in the dictionary,
+     *         false otherwise
+     */
+    @Override
+    public boolean checkWord(CharSequence text, int start, int end) {
+        return contains(text, start, end);
+    }
+
+    /**
+     * Determines which of the given ranges of characters are words
+     * contained in the dictionary. No strings are created for the words
+     * @param text the text containing the words
+     * @param starts the indexes of the first characters of the words
+     * @param ends the indexes after the last characters of the words
+     * @param count the number of words
+     * @return set of the indexes of the words that are in the dictionary
+     */
+    @Override
+    public BitSet checkWords(CharSequence text, int[] starts, int[] ends, int count) {
+        BitSet hits = new BitSet(count);
+        for (int i = 0; i < count; i++) {
+            if (contains(text, starts[i], ends[i])) {
+                hits.set(i);
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Returns the summary of the words of the dictionary, to be published in the
+     * {@value WordFilter#PROPERTY} property of the dictionary service. The summary
+     * is built on the first call; concurrent first calls may each build an equal one
+     * @return the summary of the words of the dictionary
+     */
+    public WordFilter filter() {
+        WordFilter currentFilter = filter;
+        if (currentFilter == null) {
+            BloomFilter newFilter = new BloomFilter(size());
+            forEachWord(newFilter::add);
+            filter = currentFilter = newFilter;
+        }
+        return currentFilter;
+    }
+
+    /**
+     * Returns the number of distinct words in the dictionary
+     * @return the number of distinct words in the dictionary
+     */
+    @Override
+    public abstract int size();
+
+    /**
+     * Passes every distinct word of the dictionary, in the folded form, to the given
+     * action. A passed word is only valid until the action returns
+     * @param action the action performed for every word
+     */
+    @Override
+    public abstract void forEachWord(Consumer<? super CharSequence> action);
+
+    /**
+     * Determines if the given range of characters is a word contained
+     * in the dictionary. The comparison is case-insensitive
+     * @param text the text containing the word
+     * @param start the index of the first character of the word
+     * @param end the index after the last character of the word
+     * @return true if the word is in the dictionary,
+     *         false otherwise
+     */
+    protected abstract boolean contains(CharSequence text, int start, int end);
+}
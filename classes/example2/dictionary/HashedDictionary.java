@@ -0,0 +1,132 @@
+package tutorial.example2.dictionary;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Dictionary service that folds the case of its words once, when it is
+ * created, and answers look-ups through an open-addressing hash index.
+ * The folded words are kept in a single character pool, so that the
+ * dictionary consists of a handful of arrays regardless of its size,
+ * and a look-up neither iterates over the dictionary nor allocates
+ * any objects. Instances are immutable and can be shared between threads
+ */
+public class HashedDictionary extends FoldedDictionary {
+
+    // Maximal ratio of the number of words to the number of slots
+    private static final double MAX_LOAD_FACTOR = 0.5;
+
+    // Folded characters of all words, one word after another
+    private final char[] pool;
+    // The word i occupies pool[offsets[i]] to pool[offsets[i + 1]]
+    private final int[] offsets;
+    // Hash of every word, used to skip needless comparisons of characters
+    private final int[] hashes;
+    // Open-addressing table; holds a word index incremented by one, 0 means an empty slot
+    private final int[] slots;
+    // Number of slots minus one, used to wrap slot indexes around
+    private final int mask;
+    // Number of distinct words in the dictionary
+    private final int size;
+
+    /**
+     * Creates a dictionary that contains the given words
+     * @param words the words of the dictionary
+     */
+    public HashedDictionary(String... words) {
+        this(Arrays.asList(words));
+    }
+
+    /**
+     * Creates a dictionary that contains the given words
+     * @param words the words of the dictionary
+     */
+    public HashedDictionary(Collection<String> words) {
+        int capacity = Integer.highestOneBit((int) Math.max(2, words.size() / MAX_LOAD_FACTOR) - 1) << 1;
+        int poolLength = words.stream().mapToInt(String::length).sum();
+        char[] wordsPool = new char[poolLength];
+        int[] wordsOffsets = new int[words.size() + 1];
+        int[] wordsHashes = new int[words.size()];
+        int[] wordsSlots = new int[capacity];
+        int wordsCount = 0;
+        int poolEnd = 0;
+
+        for (String word : words) {
+            int hash = CaseFolding.hash(word, 0, word.length());
+            int slot = hash & (capacity - 1);
+            boolean duplicate = false;
+            // Probe for a free slot, skipping words that are already indexed
+            while (wordsSlots[slot] != 0) {
+                int index = wordsSlots[slot] - 1;
+                if (wordsHashes[index] == hash
+                    && matches(wordsPool, wordsOffsets[index], wordsOffsets[index + 1], word, 0, word.length())) {
+                    duplicate = true;
+                    break;
+                }
+                slot = (slot + 1) & (capacity - 1);
+            }
+            if (duplicate) {
+                continue;
+            }
+            // Append the folded word to the pool and index it
+            for (int i = 0; i < word.length(); i++) {
+                wordsPool[poolEnd++] = CaseFolding.fold(word.charAt(i));
+            }
+            wordsHashes[wordsCount] = hash;
+            wordsOffsets[++wordsCount] = poolEnd;
+            wordsSlots[slot] = wordsCount;
+        }
+
+        this.pool = wordsPool;
+        this.offsets = wordsOffsets;
+        this.hashes = wordsHashes;
+        this.slots = wordsSlots;
+        this.mask = capacity - 1;
+        this.size = wordsCount;
+    }
+
+    /**
+     * Returns the number of distinct words in the dictionary
+     * @return the number of distinct words in the dictionary
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void forEachWord(Consumer<? super CharSequence> action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(new String(pool, offsets[i], offsets[i + 1] - offsets[i]));
+        }
+    }
+
+    @Override
+    protected boolean contains(CharSequence text, int start, int end) {
+        int hash = CaseFolding.hash(text, start, end);
+        int slot = hash & mask;
+        // Probe until the word or an empty slot is found
+        while (slots[slot] != 0) {
+            int index = slots[slot] - 1;
+            if (hashes[index] == hash && matches(pool, offsets[index], offsets[index + 1], text, start, end)) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    private static boolean matches(char[] pool, int poolStart, int poolEnd,
+                                   CharSequence text, int start, int end) {
+        if (poolEnd - poolStart != end - start) {
+            return false;
+        }
+        for (int i = start, j = poolStart; i < end; i++, j++) {
+            if (CaseFolding.fold(text.charAt(i)) != pool[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
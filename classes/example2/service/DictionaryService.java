@@ -0,0 +1,75 @@
+package tutorial.example2.service;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A simple service interface that defines a dictionary service.
+ * A dictionary service simply verifies the existence if a word.
+ */
+public interface DictionaryService {
+
+    /**
+     * Check for the existence of a word.
+     * @param checkedWord the word to be checked
+     * @return true if the word is in the dictionary,
+     *         false otherwise
+     */
+    boolean checkWord(String checkedWord);
+
+    /**
+     * Check for the existence of many words at once. A single call
+     * per passage lets the implementation amortise its per-call costs
+     * over all the words, instead of paying them for every word.
+     * By default, every word is checked separately with {@link #checkWord(String)}
+     * @param checkedWords the words to be checked
+     * @return set of the indexes of the words that are in the dictionary
+     */
+    default BitSet checkWords(List<? extends CharSequence> checkedWords) {
+        BitSet hits = new BitSet(checkedWords.size());
+        for (int i = 0; i < checkedWords.size(); i++) {
+            CharSequence checkedWord = checkedWords.get(i);
+            if (checkedWord != null && checkWord(checkedWord.toString())) {
+                hits.set(i);
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Check for the existence of a word given as a range of characters
+     * of a longer text, such as a passage. The word doesn't need to be
+     * copied out of the text, so that no string is created for it.
+     * By default, the range is converted to a string and checked with
+     * {@link #checkWord(String)}
+     * @param text the text containing the word
+     * @param start the index of the first character of the word
+     * @param end the index after the last character of the word
+     * @return true if the word is in the dictionary,
+     *         false otherwise
+     */
+    default boolean checkWord(CharSequence text, int start, int end) {
+        return checkWord(text.subSequence(start, end).toString());
+    }
+
+    /**
+     * Check for the existence of many words given as ranges of characters
+     * of a longer text, such as a passage. The word i spans the characters
+     * from {@code starts[i]} to {@code ends[i]}. By default, every word is
+     * checked separately with {@link #checkWord(CharSequence, int, int)}
+     * @param text the text containing the words
+     * @param starts the indexes of the first characters of the words
+     * @param ends the indexes after the last characters of the words
+     * @param count the number of words
+     * @return set of the indexes of the words that are in the dictionary
+     */
+    default BitSet checkWords(CharSequence text, int[] starts, int[] ends, int count) {
+        BitSet hits = new BitSet(count);
+        for (int i = 0; i < count; i++) {
+            if (checkWord(text, starts[i], ends[i])) {
+                hits.set(i);
+            }
+        }
+        return hits;
+    }
+}
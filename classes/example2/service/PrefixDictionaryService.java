@@ -0,0 +1,20 @@
+package tutorial.example2.service;
+
+import java.util.List;
+
+/**
+ * A dictionary service that, apart from verifying the existence
+ * of a word, can also enumerate the words starting with a prefix.
+ */
+public interface PrefixDictionaryService extends DictionaryService {
+
+    /**
+     * Lists the words of the dictionary starting with a given prefix,
+     * in lexicographic order. The prefix is matched case-insensitively
+     * and the words are returned in the form stored by the dictionary
+     * @param prefix the prefix of the listed words
+     * @param limit the maximal number of listed words
+     * @return the words starting with the prefix; empty if there are none
+     */
+    List<String> wordsStartingWith(String prefix, int limit);
+}
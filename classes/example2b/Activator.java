@@ -3,6 +3,7 @@ package tutorial.example2b;
 import org.osgi.framework.BundleActivator;
 import org.osgi.framework.BundleContext;
 import tutorial.example2.service.DictionaryService;
+import tutorial.example2.service.WordFilter;
 
 import java.util.Dictionary;
 import java.util.Hashtable;
@@ -19,16 +20,19 @@ public class Activator implements BundleActivator {
     /**
      * Registers an instance of a dictionary service using the
      * bundle context; attaches properties to the service that
-     * can be queried when performing a service look-up
+     * can be queried when performing a service look-up, including
+     * the summary of the words of the dictionary
      * @param context the framework context for the bundle
      */
     @Override
     public void start(BundleContext context) throws Exception {
-        Dictionary<String, String> properties = new Hashtable<>() {{
+        DictionaryServiceImpl dictionary = new DictionaryServiceImpl();
+        Dictionary<String, Object> properties = new Hashtable<>() {{
            put("Language", "French");
+           put(WordFilter.PROPERTY, dictionary.filter());
         }};
         String serviceName = DictionaryService.class.getName();
-        context.registerService(serviceName, new DictionaryServiceImpl(), properties);
+        context.registerService(serviceName, dictionary, properties);
     }
 
     /**
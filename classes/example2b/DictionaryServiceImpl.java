@@ -1,22 +1,17 @@
 package tutorial.example2b;
 
-import tutorial.example2.service.DictionaryService;
+import tutorial.example2.dictionary.HashedDictionary;
 
-import java.util.Arrays;
+/**
+ * French dictionary. The words are folded and indexed once, when the
+ * dictionary is created, so that checking a word doesn't iterate over
+ * the whole dictionary
+ */
+class DictionaryServiceImpl extends HashedDictionary {
 
-class DictionaryServiceImpl implements DictionaryService {
+    private static final String[] KNOWN_WORDS = {"bienvenue", "dans", "l'univers"};
 
-    private final String[] knownWords = {"bienvenue", "dans", "l'univers"};
-
-    /**
-     * Determines if the passed in word is contained in the dictionary.
-     * @param checkedWord the word to be checked
-     * @return true if the word is in the dictionary,
-     *         false otherwise
-     */
-    @Override
-    public boolean checkWord(String checkedWord) {
-        return Arrays.stream(knownWords)
-                     .anyMatch(knownWord -> knownWord.equalsIgnoreCase(checkedWord));
+    DictionaryServiceImpl() {
+        super(KNOWN_WORDS);
     }
 }
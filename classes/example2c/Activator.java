@@ -0,0 +1,92 @@
+package tutorial.example2c;
+
+import org.osgi.framework.BundleActivator;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleException;
+import org.osgi.framework.ServiceRegistration;
+import tutorial.example2.dictionary.MappedDictionary;
+import tutorial.example2.service.DictionaryService;
+import tutorial.example2.service.WordFilter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Dictionary;
+import java.util.Hashtable;
+
+/**
+ * This class implements a bundle that registers a dictionary service
+ * backed by a memory-mapped dictionary file, compiled in advance with
+ * {@link DictionaryCompiler}. Unlike the dictionaries of Example 2 and
+ * Example 2b, the words of this dictionary aren't held on the heap.
+ * Starting the bundle costs a single sequential pass over the file,
+ * which validates it; the summary of the words, which takes another pass,
+ * is built in the background and attached to the registered service once
+ * it is ready. The file and its language are read from the following
+ * framework properties:
+ * <ul>
+ *     <li>{@value #FILE_PROPERTY} - path to the compiled dictionary file</li>
+ *     <li>{@value #LANGUAGE_PROPERTY} - language of the dictionary</li>
+ * </ul>
+ */
+public class Activator implements BundleActivator {
+
+    static final String FILE_PROPERTY = "tutorial.example2c.file";
+    static final String LANGUAGE_PROPERTY = "tutorial.example2c.language";
+
+    /**
+     * Maps the configured dictionary file and registers it as a dictionary
+     * service, with the configured language attached as a property. The
+     * summary of its words is built by a single sequential pass over the file
+     * on a separate thread, and attached as a property of the service when
+     * done. If no dictionary file is configured, it simply prints a message
+     * and returns
+     * @param context the framework context for the bundle
+     * @throws BundleException if the dictionary file can't be mapped or is invalid
+     */
+    @Override
+    public void start(BundleContext context) throws Exception {
+        String file = context.getProperty(FILE_PROPERTY);
+        String language = context.getProperty(LANGUAGE_PROPERTY);
+        if (file == null || language == null) {
+            System.out.printf("Properties %s and %s must be set to register a mapped dictionary%n",
+                              FILE_PROPERTY, LANGUAGE_PROPERTY);
+            return;
+        }
+
+        Path dictionaryFile = Paths.get(file);
+        MappedDictionary dictionary;
+        try {
+            dictionary = MappedDictionary.open(dictionaryFile);
+        } catch (IOException exception) {
+            throw new BundleException("Couldn't map the dictionary file " + dictionaryFile, exception);
+        }
+
+        Dictionary<String, Object> properties = new Hashtable<>() {{
+            put("Language", language);
+        }};
+        String serviceName = DictionaryService.class.getName();
+        ServiceRegistration<?> registration = context.registerService(serviceName, dictionary, properties);
+
+        Thread summaryBuilder = new Thread(() -> {
+            properties.put(WordFilter.PROPERTY, dictionary.filter());
+            try {
+                registration.setProperties(properties);
+            } catch (IllegalStateException exception) {
+                // The bundle has been stopped in the meantime
+            }
+        }, "Ex2c summary builder");
+        summaryBuilder.setDaemon(true);
+        summaryBuilder.start();
+    }
+
+    /**
+     * Does nothing since the framework will automatically unregister
+     * any registered services
+     * @param context the framework context for the bundle
+     */
+    @Override
+    public void stop(BundleContext context) throws Exception {
+        // The service is unregistered automatically
+    }
+}
@@ -3,85 +3,97 @@ package tutorial.example3;
 import org.osgi.framework.BundleActivator;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceReference;
+import tutorial.example2.client.ConsoleLoop;
+import tutorial.example2.client.ServiceBinding;
 import tutorial.example2.service.DictionaryService;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.Collection;
 
 /**
  * This class implements a bundle that uses a dictionary
  * service to check for the proper spelling of a word by
  * check for its existence in the dictionary. This bundle
- * uses the first service that it finds and does not monitor
- * the dynamic availability of the service (i.e., it does not
- * listen for the arrival or departure of dictionary services).
- * When starting this bundle, the thread calling the start()
- * method is used to read words from standard input. You can
+ * uses the first service that it finds, bound to it through a
+ * {@link ServiceBinding} fixed to that service. The service
+ * object is got on the first check and cached in the binding,
+ * so checking a word doesn't involve the framework. The binding
+ * listens for the departure of the service: once the service is
+ * being unregistered, the cached object is released and the
+ * binding stays empty, as it is never rebound to another
+ * dictionary service, even one arriving later. Every word is
+ * then answered with the dictionary being no longer available
+ * until the bundle is restarted.
+ * When starting this bundle, it starts a console loop reading
+ * words from standard input on the shared console reader thread,
+ * so that the start() method returns right away; the loop is
+ * cancelled with the bundle. You can
  * stop checking words by entering an empty line, but to start
  * checking words again you must stop and then restart the bundle.
  **/
 public class Activator implements BundleActivator {
 
-    private static final Logger LOGGER = Logger.getLogger(Activator.class.getName());
+    // Binding to the used dictionary service
+    private ServiceBinding<DictionaryService> dictionaryBinding = null;
+    // Loop reading words from standard input
+    private ConsoleLoop wordLoop = null;
 
     /**
      * Queries for all available dictionary services. If none
      * are found it simply prints a message and returns, otherwise
-     * it reads words from standard input and checks for their
-     * existence from the first dictionary that it finds
+     * it starts reading words from standard input in a console
+     * loop and checks for their existence from the first
+     * dictionary that it finds
      */
     @Override
     public void start(BundleContext context) throws Exception {
         // Query fo all service references matching any language
-        String dicServiceClassName = DictionaryService.class.getName();
-        ServiceReference<?>[] references = context.getServiceReferences(
-                                        dicServiceClassName, "(Language=*)");
-        if (references != null) {
-            try {
-                System.out.println("Enter a blank line to exit");
-                BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
-                String word = "";
-
-                // Loop endlessly
-                while (true) {
-                    // Ask the user to enter a word
-                    System.out.println("Enter word:");
-                    word = in.readLine();
-
-                    // If the user entered a blank line, then exit the loop
-                    if (word.isEmpty()) {
-                        break;
-                    }
-
-                    /* First, get a dictionary service and
-                       then check if the word is correct */
-                    DictionaryService dictionary = (DictionaryService) context.getService(references[0]);
-                    if (dictionary.checkWord(word)) {
-                        System.out.println("The word is correct");
-                    } else {
-                        System.out.println("The word is incorrect");
-                    }
-
-                    // Unget the dictionary service
-                    context.ungetService(references[0]);
-                }
-            } catch (IOException exception) {
-                LOGGER.log(Level.SEVERE, exception.getMessage(), exception);
-            }
+        Collection<ServiceReference<DictionaryService>> references = context.getServiceReferences(
+                                        DictionaryService.class, "(Language=*)");
+        if (!references.isEmpty()) {
+            // Bind the first dictionary service, for all the words
+            dictionaryBinding = ServiceBinding.toService(context, DictionaryService.class,
+                                                         references.iterator().next());
+            dictionaryBinding.open();
+            wordLoop = ConsoleLoop.start("Enter word:", this::checkWord);
         } else {
             System.out.println("Couldn't find any dictionary service...");
         }
     }
 
     /**
-     * Does nothing since the framework will automatically unget any used services
+     * Stops reading words and releases the cached dictionary service.
+     * The framework would automatically unget it anyway, but not before
+     * the bundle stops
      * @param context the framework context for the bundle
      */
     @Override
     public void stop(BundleContext context) throws Exception {
-        // NOTE: The service is automatically released
+        if (wordLoop != null) {
+            wordLoop.cancel();
+            wordLoop = null;
+        }
+        if (dictionaryBinding != null) {
+            dictionaryBinding.close();
+            dictionaryBinding = null;
+        }
+    }
+
+    /**
+     * Checks the entered word in the dictionary and prints whether it is correct
+     * @param word the entered word
+     */
+    private void checkWord(String word) {
+        /* First, read the bound dictionary service and
+           then check if the word is correct */
+        ServiceBinding<DictionaryService> binding = dictionaryBinding;
+        DictionaryService dictionary = binding == null ? null : binding.get();
+        // If the dictionary has been unregistered, then say so
+        if (dictionary == null) {
+            System.out.println("The dictionary is no longer available");
+        } else if (dictionary.checkWord(word)) {
+            System.out.println("The word is correct");
+        } else {
+            System.out.println("The word is incorrect");
+        }
     }
 }
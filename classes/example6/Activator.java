@@ -2,26 +2,44 @@ package tutorial.example6;
 
 import org.osgi.framework.*;
 import tutorial.example2.service.DictionaryService;
+import tutorial.example2.service.WordFilter;
+import tutorial.example6.service.IncrementalSpellChecker;
+import tutorial.example6.service.LanguageSpellChecker;
 import tutorial.example6.service.SpellChecker;
+import tutorial.example6.service.StreamingSpellChecker;
+import tutorial.example6.service.SuggestionService;
+import tutorial.example6.spelling.PassageChecker;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class Activator implements BundleActivator, ServiceListener {
 
+    /* Framework property with the length of a passage, in characters,
+       from which on it is checked in parallel */
+    static final String PARALLEL_THRESHOLD_PROPERTY = "tutorial.example6.parallelThreshold";
+    // Property of a dictionary service naming its language
+    static final String LANGUAGE_PROPERTY = "Language";
+
     // Bundle's context
     private BundleContext context = null;
-    // List of available dictionary service references
-    private final List<ServiceReference<?>> referencesList = new ArrayList<>();
-    // Maps service references to service objects
-    private final Map<ServiceReference<?>, Object> refToObjMap = new HashMap<>();
+    /* Snapshot of the available dictionary services. It is replaced
+       as a whole on every change and read by the spell checker without
+       any locking */
+    private final AtomicReference<DictionarySnapshot> dictionaries =
+            new AtomicReference<>(DictionarySnapshot.EMPTY);
+    /* Serializes the changes of the dictionary snapshot and of the
+       spell checker service registration; the spell checker never takes it */
+    private final Object updateLock = new Object();
     // The spell checker service registration
     private ServiceRegistration<?> serviceRegistration = null;
+    // The suggestion service registration, registered along with the spell checker
+    private ServiceRegistration<?> suggestionRegistration = null;
 
     /**
      * Adds itself as a service listener and queries for all currently
      * available dictionary services. Any available dictionary services
-     * are added to the service reference list. If dictionary services
+     * are added to the dictionary snapshot. If dictionary services
      * are found, then the spell checker service is registered.
      * @param context the framework context for the bundle
      */
@@ -29,7 +47,7 @@ public class Activator implements BundleActivator, ServiceListener {
     public void start(BundleContext context) throws Exception {
         this.context = context;
 
-        synchronized (referencesList) {
+        synchronized (updateLock) {
             // Listen for events pertaining to dictionary services
             String dicServiceClassName = DictionaryService.class.getName();
             String dicServicePropertiesFilter = String.format("(&(objectClass=%s)(Language=*))", dicServiceClassName);
@@ -39,28 +57,14 @@ public class Activator implements BundleActivator, ServiceListener {
             ServiceReference<?>[] retrievedReferences = this.context.getServiceReferences(dicServiceClassName,
                                                                                   "(Language=*)");
 
-            // Add any dictionaries to the service reference list
+            // Add any dictionaries to the snapshot
             if (retrievedReferences != null) {
-                Arrays.stream(retrievedReferences).collect(Collectors.toList()).forEach(traversedReference -> {
-                    // Get the service object
-                    Object service = this.context.getService(traversedReference);
-
-                    // Make that the service is not being duplicated
-                    if (service != null
-                        && refToObjMap.get(traversedReference) == null) {
-                        // Add to the reference list
-                        referencesList.add(traversedReference);
-                        // Map reference to service object for easy look up
-                        refToObjMap.put(traversedReference, service);
-                    }
-                });
+                Arrays.stream(retrievedReferences).forEach(this::addDictionary);
 
                 /* Register spell checker service if there are any
                    dictionary services */
-                if (!referencesList.isEmpty()) {
-                    serviceRegistration = this.context.registerService(
-                                          SpellChecker.class.getName(),
-                                          new SpellCheckerImpl(), null);
+                if (!dictionaries.get().isEmpty()) {
+                    registerSpellChecker();
                 }
             }
         }
@@ -77,109 +81,137 @@ public class Activator implements BundleActivator, ServiceListener {
 
     /**
      * Monitors the arrival and departure of dictionary services,
-     * adding and removing them from the service reference list,
+     * publishing a new dictionary snapshot with them added or removed,
      * respectively. In the case where no more dictionary services
-     * are available, the spell checker service is unregistered.
-     * As soon as any dictionary service becomes available, the spell
-     * checker service is registered
+     * are available, the spell checker and suggestion services are
+     * unregistered. As soon as any dictionary service becomes available,
+     * the spell checker and suggestion services are registered. A change of the properties of
+     * a dictionary service, such as its language, is reflected in
+     * a new snapshot as well
      * @param event the fired service event
      */
     @Override
     public void serviceChanged(ServiceEvent event) {
-        synchronized (referencesList) {
-            // Add the new dictionary service to the service list
+        synchronized (updateLock) {
+            // Add the new dictionary service to the snapshot
             if (event.getType() == ServiceEvent.REGISTERED) {
-                // Get the service object
-                Object service = context.getService(event.getServiceReference());
-
-                // Make that the service is not being duplicated
-                if (service != null
-                    && refToObjMap.get(event.getServiceReference()) == null) {
-                    // Add to the reference list
-                    referencesList.add(event.getServiceReference());
-                    // Map reference to service object for easy look up
-                    refToObjMap.put(event.getServiceReference(), service);
-
-                    // Register spell checker service if necessary
-                    if (serviceRegistration == null) {
-                        serviceRegistration = context.registerService(
-                                              SpellChecker.class.getName(),
-                                              new SpellCheckerImpl(), null);
-                    }
+                // Register spell checker service if necessary
+                if (addDictionary(event.getServiceReference()) && serviceRegistration == null) {
+                    registerSpellChecker();
+                }
+            }
+            // Reindex the modified service by its new properties
+            else if (event.getType() == ServiceEvent.MODIFIED) {
+                DictionarySnapshot snapshot = dictionaries.get();
+                ServiceReference<?> reference = event.getServiceReference();
+                if (snapshot.contains(reference)) {
+                    dictionaries.set(snapshot.modified(reference, languageOf(reference), rankingOf(reference),
+                                                       reference.getProperty(WordFilter.PROPERTY)));
+                }
+                // A service that has got a language is added like an arriving one
+                else if (addDictionary(event.getServiceReference()) && serviceRegistration == null) {
+                    registerSpellChecker();
                 }
             }
-            // Remove departing service from the service list
-            else if (event.getType() == ServiceEvent.UNREGISTERING) {
-                // Make sure the service is in the list
-                if (refToObjMap.get(event.getServiceReference()) != null) {
-                    // Unget the service object
-                    context.ungetService(event.getServiceReference());
-                    // Remove service reverence
-                    referencesList.remove(event.getServiceReference());
-                    // Remove service reference from map
-                    refToObjMap.remove(event.getServiceReference());
-
-                    /* If there are no more dictionary services,
-                       then unregister the spell checker service */
-                    if (referencesList.isEmpty()) {
-                        serviceRegistration.unregister();
-                        serviceRegistration = null;
-                    }
+            /* Remove departing service from the snapshot, as well
+               as the one that no longer has any language */
+            else if (event.getType() == ServiceEvent.UNREGISTERING
+                     || event.getType() == ServiceEvent.MODIFIED_ENDMATCH) {
+                /* If there are no more dictionary services,
+                   then unregister the spell checker service */
+                if (removeDictionary(event.getServiceReference()) && dictionaries.get().isEmpty()) {
+                    unregisterSpellChecker();
                 }
             }
         }
     }
 
-    private class SpellCheckerImpl implements SpellChecker {
-
-        /**
-         * Checks the given passage for misspelled words.
-         * @param passage the passage to spell check
-         * @return An array of misspelled words or null
-         *         if no words are misspelled
-         */
-        @Override
-        public String[] checkPassage(String passage) {
-            // No misspelled words for an empty string
-            if (passage == null || passage.isEmpty()) {
-                return null;
-            }
+    /**
+     * Gets the service object of the given dictionary service
+     * and publishes a snapshot with that service added
+     * @param reference the reference of the arriving dictionary service
+     * @return true if the snapshot has changed, false otherwise
+     */
+    private boolean addDictionary(ServiceReference<?> reference) {
+        DictionarySnapshot snapshot = dictionaries.get();
+        // Make sure that the service is not being duplicated
+        if (snapshot.contains(reference)) {
+            return false;
+        }
+        // Get the service object
+        Object service = context.getService(reference);
+        if (service == null) {
+            return false;
+        }
+        dictionaries.set(snapshot.with(reference, (DictionaryService) service, languageOf(reference),
+                                       rankingOf(reference), reference.getProperty(WordFilter.PROPERTY)));
+        return true;
+    }
 
-            Collection<String> errorList = new ArrayList<>();
-
-            // Tokenize the passage using spaces and punctuation
-            StringTokenizer tokenizer = new StringTokenizer(passage, " ,.!?;:");
-
-            // Lock the service list
-            synchronized (referencesList) {
-                // Loop through each word in the passage
-                while (tokenizer.hasMoreTokens()) {
-                    String word = tokenizer.nextToken();
-                    boolean correct = false;
-                    // Check each available dictionary for the current word
-                    for (int i = 0; (!correct) && (i < referencesList.size()); i++) {
-                        DictionaryService dictionaryService =
-                                (DictionaryService) refToObjMap.get(referencesList.get(i));
-                        if (dictionaryService.checkWord(word)) {
-                            correct = true;
-                        }
-                    }
-
-                    /* If the word is not correct, the add it
-                       to the incorrect word list */
-                    if (!correct) {
-                        errorList.add(word);
-                    }
-                }
-            }
+    /**
+     * Publishes a snapshot without the given dictionary
+     * service and ungets its service object
+     * @param reference the reference of the departing dictionary service
+     * @return true if the snapshot has changed, false otherwise
+     */
+    private boolean removeDictionary(ServiceReference<?> reference) {
+        DictionarySnapshot snapshot = dictionaries.get();
+        // Make sure the service is in the snapshot
+        if (!snapshot.contains(reference)) {
+            return false;
+        }
+        dictionaries.set(snapshot.without(reference));
+        // Unget the service object
+        context.ungetService(reference);
+        return true;
+    }
 
-            // Return null if no words are incorrect
-            if (errorList.isEmpty()) {
-                return null;
-            }
+    private static String languageOf(ServiceReference<?> reference) {
+        return String.valueOf(reference.getProperty(LANGUAGE_PROPERTY));
+    }
 
-            // Return the array of incorrect words
-            return errorList.toArray(new String[errorList.size()]);
+    private static int rankingOf(ServiceReference<?> reference) {
+        Object ranking = reference.getProperty(Constants.SERVICE_RANKING);
+        return ranking instanceof Integer ? (Integer) ranking : 0;
+    }
+
+    /**
+     * Reads the parallel threshold from the framework properties
+     * @return the threshold, or the default one if the property
+     *         is not set or isn't a positive integer
+     */
+    private int parallelThreshold() {
+        int defaultValue = PassageChecker.DEFAULT_PARALLEL_THRESHOLD;
+        String value = context.getProperty(PARALLEL_THRESHOLD_PROPERTY);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            if (parsed > 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException exception) {
+            // Replaced with the default below
         }
+        System.out.println("Ex6: Invalid value '" + value + "' of " + PARALLEL_THRESHOLD_PROPERTY
+                           + ", using " + defaultValue + ".");
+        return defaultValue;
+    }
+
+    private void registerSpellChecker() {
+        SpellChecker spellChecker = new SpellCheckerImpl(dictionaries::get, parallelThreshold());
+        String[] serviceNames = {SpellChecker.class.getName(), StreamingSpellChecker.class.getName(),
+                                 LanguageSpellChecker.class.getName(), IncrementalSpellChecker.class.getName()};
+        serviceRegistration = context.registerService(serviceNames, spellChecker, null);
+        SuggestionService suggestionService = new SuggestionServiceImpl(dictionaries::get);
+        suggestionRegistration = context.registerService(SuggestionService.class.getName(), suggestionService, null);
+    }
+
+    private void unregisterSpellChecker() {
+        serviceRegistration.unregister();
+        serviceRegistration = null;
+        suggestionRegistration.unregister();
+        suggestionRegistration = null;
     }
 }
@@ -0,0 +1,297 @@
+package tutorial.example6;
+
+import tutorial.example2.service.DictionaryService;
+import tutorial.example2.service.EnumerableDictionaryService;
+import tutorial.example6.spelling.FilteredDictionary;
+import tutorial.example6.spelling.SuggestionIndex;
+import tutorial.example6.spelling.VerdictCache;
+import tutorial.example6.spelling.WordSegmenter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable snapshot of the available dictionary services. A change
+ * of the available services never modifies a snapshot; instead, a new
+ * snapshot is created and published, so that the spell checker can
+ * read the current snapshot without any locking. Along with the services,
+ * a snapshot holds the rules splitting passages into words, selected by the
+ * languages of the services.
+ * <p>
+ * Every service is added with its language, its ranking, the summary of its
+ * words, if any, and a key identifying it, e.g. its service reference, which
+ * is all the snapshot knows of it, so that a snapshot can also be built from
+ * dictionaries that aren't registered as services. The services are ordered
+ * by their ranking, highest first, and then by the order of their arrival, so that a word is looked up in
+ * the preferred dictionaries first. Every snapshot has its own cache of the
+ * verdicts on the checked words, which is thereby dropped together with
+ * the snapshot as soon as the dictionaries change.
+ * <p>
+ * A snapshot also indexes its services by their language: for every language
+ * it holds a snapshot of the services of that language only, built along with
+ * the snapshot itself, so that routing a passage to its language costs
+ * a single map look-up. The index of spelling suggestions takes much longer
+ * to build, so it is built only when it is first needed, in the background.
+ * Once suggestions have been asked for, every following snapshot starts
+ * building its own index right away, and until it is done, the suggestions
+ * come from the last index built for a previous snapshot, so that no caller
+ * waits for an index unless there has never been one
+ */
+final class DictionarySnapshot {
+
+    static final DictionarySnapshot EMPTY = new DictionarySnapshot(new Entry[0], true);
+
+    // Available dictionary services, by ranking and then in the order of their arrival
+    private final Entry[] entries;
+    /* Service objects to check the words against; the ones that
+       have published a summary of their words are placed behind it */
+    private final DictionaryService[] services;
+    // Splits passages into words for the languages of the services
+    private final WordSegmenter segmenter;
+    // Verdicts on the words checked against the services
+    private final VerdictCache cache = new VerdictCache();
+    // Snapshots of the services of every language; empty for such a snapshot itself
+    private final Map<String, DictionarySnapshot> languages;
+    // Index of the words of the services for suggestions, built in the background on first use
+    private final AtomicReference<CompletableFuture<SuggestionIndex>> suggestions = new AtomicReference<>();
+    // Index of a previous snapshot, used until the index of this one is built
+    private volatile SuggestionIndex previousSuggestions = null;
+
+    private DictionarySnapshot(Entry[] entries, boolean indexed) {
+        this.entries = entries;
+        this.services = new DictionaryService[entries.length];
+        for (int i = 0; i < services.length; i++) {
+            services[i] = FilteredDictionary.of(entries[i].service, entries[i].summary);
+        }
+        this.segmenter = WordSegmenter.forLanguages(Arrays.stream(entries)
+                                                          .map(entry -> entry.language)
+                                                          .collect(Collectors.toSet()));
+        this.languages = indexed ? indexLanguages() : Collections.emptyMap();
+    }
+
+    /**
+     * Creates the snapshots of the services of every language, keeping their order
+     */
+    private Map<String, DictionarySnapshot> indexLanguages() {
+        Map<String, List<Entry>> languageEntries = new TreeMap<>();
+        for (Entry entry : entries) {
+            languageEntries.computeIfAbsent(entry.language, language -> new ArrayList<>()).add(entry);
+        }
+        Map<String, DictionarySnapshot> index = new TreeMap<>();
+        languageEntries.forEach((language, languageServices) -> index.put(
+                language, new DictionarySnapshot(languageServices.toArray(new Entry[0]), false)));
+        return Collections.unmodifiableMap(index);
+    }
+    /**
+     * Returns the available dictionary services. The returned
+     * array is shared and must not be modified
+     * @return the available dictionary services
+     */
+    DictionaryService[] services() {
+        return services;
+    }
+
+    /**
+     * Returns the rules splitting passages into
+     * words for the languages of the services
+     * @return the rules splitting passages into words
+     */
+    WordSegmenter segmenter() {
+        return segmenter;
+    }
+
+    /**
+     * Returns the verdicts on the words checked against the services
+     * @return the verdicts on the words checked against the services
+     */
+    VerdictCache cache() {
+        return cache;
+    }
+
+    /**
+     * Returns the index of the words of the services for spelling suggestions.
+     * Only the services that can enumerate their words are indexed. The index
+     * is built in the background; until it is done, the index of a previous
+     * snapshot is returned, if there is any, and otherwise the call waits for it
+     * @return the index of the words of the services
+     */
+    SuggestionIndex suggestions() {
+        CompletableFuture<SuggestionIndex> index = buildSuggestions();
+        SuggestionIndex previous = previousSuggestions;
+        if (previous == null || index.isDone()) {
+            return index.join();
+        }
+        return previous;
+    }
+
+    /**
+     * Starts building the index of the words of the services, unless it has already been started
+     */
+    private CompletableFuture<SuggestionIndex> buildSuggestions() {
+        CompletableFuture<SuggestionIndex> index = suggestions.get();
+        if (index != null) {
+            return index;
+        }
+        CompletableFuture<SuggestionIndex> newIndex = new CompletableFuture<>();
+        if (!suggestions.compareAndSet(null, newIndex)) {
+            return suggestions.get();
+        }
+        newIndex.completeAsync(() -> {
+            SuggestionIndex.Builder builder = SuggestionIndex.builder();
+            for (Entry entry : entries) {
+                if (entry.service instanceof EnumerableDictionaryService) {
+                    ((EnumerableDictionaryService) entry.service).forEachWord(builder::add);
+                }
+            }
+            return builder.build();
+        });
+        // The index of the previous snapshot isn't needed anymore
+        newIndex.whenComplete((built, failure) -> previousSuggestions = null);
+        return newIndex;
+    }
+
+    /**
+     * Takes over the suggestions of the snapshot this one replaces: if they are
+     * in use, the index of this snapshot is started and the last built index of
+     * the previous snapshot is used until it is done
+     * @return this snapshot
+     */
+    private DictionarySnapshot replacing(DictionarySnapshot previous) {
+        CompletableFuture<SuggestionIndex> previousIndex = previous.suggestions.get();
+        if (previousIndex != null) {
+            previousSuggestions = previousIndex.isDone() && !previousIndex.isCompletedExceptionally()
+                                  ? previousIndex.join() : previous.previousSuggestions;
+            buildSuggestions();
+        }
+        return this;
+    }
+
+    /**
+     * Returns the snapshots of the services of every language, by language
+     * @return the snapshots of the services of every language
+     */
+    Map<String, DictionarySnapshot> languages() {
+        return languages;
+    }
+
+    /**
+     * Returns the snapshot of the services of the given language
+     * @param language the language of the services
+     * @return the snapshot of the services of the language; empty if there are none
+     */
+    DictionarySnapshot forLanguage(String language) {
+        return languages.getOrDefault(language, EMPTY);
+    }
+
+    boolean isEmpty() {
+        return entries.length == 0;
+    }
+
+    boolean contains(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Creates a snapshot with the given dictionary service added
+     * after all the services with the same or a higher ranking
+     * @param key the key identifying the added service
+     * @param service the added service object
+     * @param language the language of the added service
+     * @param ranking the ranking of the added service
+     * @param summary the summary of the words of the added service, or null if it has published none
+     * @return the new snapshot
+     */
+    DictionarySnapshot with(Object key, DictionaryService service, String language, int ranking, Object summary) {
+        Entry[] newEntries = inserted(entries, new Entry(key, service, language, ranking, summary));
+        return new DictionarySnapshot(newEntries, true).replacing(this);
+    }
+
+    /**
+     * Creates a snapshot without the given dictionary service
+     * @param key the key identifying the removed service
+     * @return the new snapshot, or this one if it doesn't contain the service
+     */
+    DictionarySnapshot without(Object key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return this;
+        }
+        return new DictionarySnapshot(removed(entries, index), true).replacing(this);
+    }
+
+    /**
+     * Creates a snapshot reflecting the modified properties of the given dictionary service
+     * @param key the key identifying the modified service
+     * @param language the new language of the service
+     * @param ranking the new ranking of the service
+     * @param summary the new summary of the words of the service, or null if it has published none
+     * @return the new snapshot, or this one if it doesn't contain the service
+     */
+    DictionarySnapshot modified(Object key, String language, int ranking, Object summary) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return this;
+        }
+        Entry[] newEntries = inserted(removed(entries, index),
+                                      new Entry(key, entries[index].service, language, ranking, summary));
+        return new DictionarySnapshot(newEntries, true).replacing(this);
+    }
+
+    /**
+     * Inserts the given entry after all the entries with the same or a higher ranking
+     */
+    private static Entry[] inserted(Entry[] entries, Entry entry) {
+        int index = 0;
+        while (index < entries.length && entries[index].ranking >= entry.ranking) {
+            index++;
+        }
+        Entry[] newEntries = new Entry[entries.length + 1];
+        System.arraycopy(entries, 0, newEntries, 0, index);
+        System.arraycopy(entries, index, newEntries, index + 1, entries.length - index);
+        newEntries[index] = entry;
+        return newEntries;
+    }
+
+    private static Entry[] removed(Entry[] entries, int index) {
+        Entry[] newEntries = new Entry[entries.length - 1];
+        System.arraycopy(entries, 0, newEntries, 0, index);
+        System.arraycopy(entries, index + 1, newEntries, index, newEntries.length - index);
+        return newEntries;
+    }
+
+    private int indexOf(Object key) {
+        for (int i = 0; i < entries.length; i++) {
+            if (entries[i].key.equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Dictionary service along with what the snapshot knows of it
+     */
+    private static final class Entry {
+
+        private final Object key;
+        private final DictionaryService service;
+        private final String language;
+        private final int ranking;
+        private final Object summary;
+
+        private Entry(Object key, DictionaryService service, String language, int ranking, Object summary) {
+            this.key = key;
+            this.service = service;
+            this.language = language;
+            this.ranking = ranking;
+            this.summary = summary;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package tutorial.example6;
+
+import tutorial.example6.service.Misspelling;
+import tutorial.example6.service.MisspellingChange;
+import tutorial.example6.service.SpellCheckSession;
+import tutorial.example6.spelling.CheckedDocument;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Spell checking session checking every edit against the current snapshot
+ * of the dictionary services. While the snapshot stays the same, only the
+ * words touched by an edit are checked; once dictionaries have arrived or
+ * departed, the next edit checks the whole document against the new ones
+ */
+class SpellCheckSessionImpl implements SpellCheckSession {
+
+    // Supplies the current snapshot of the dictionary services
+    private final Supplier<DictionarySnapshot> dictionaries;
+    private final CheckedDocument document;
+
+    /**
+     * Creates a session of the given document and checks the whole document
+     * @param dictionaries supplies the current snapshot of the dictionary services
+     * @param text the initial text of the document
+     */
+    SpellCheckSessionImpl(Supplier<DictionarySnapshot> dictionaries, String text) {
+        this.dictionaries = dictionaries;
+        this.document = new CheckedDocument(text);
+        DictionarySnapshot snapshot = dictionaries.get();
+        document.check(snapshot.services(), snapshot.segmenter(), snapshot.cache());
+    }
+
+    @Override
+    public String text() {
+        return document.text();
+    }
+
+    @Override
+    public List<Misspelling> misspellings() {
+        return document.misspellings();
+    }
+
+    @Override
+    public MisspellingChange edit(int offset, int removedLength, String insertedText) {
+        DictionarySnapshot snapshot = dictionaries.get();
+        return document.edit(offset, removedLength, insertedText,
+                             snapshot.services(), snapshot.segmenter(), snapshot.cache());
+    }
+}
@@ -0,0 +1,36 @@
+package tutorial.example6;
+
+import tutorial.example2.service.DictionaryService;
+import tutorial.example6.service.StreamingSpellChecker;
+
+import java.util.Map;
+
+/**
+ * Creates the spell checker of this example outside of the framework,
+ * from dictionaries that aren't registered as services, e.g. so that
+ * it can be benchmarked without starting its bundle
+ */
+public final class SpellCheckers {
+
+    private SpellCheckers() {
+        // Utility class
+    }
+
+    /**
+     * Creates a spell checker using the given dictionaries,
+     * consulted in the iteration order of the map
+     * @param dictionaries the dictionaries mapped to their languages
+     * @param parallelThreshold the length of a passage, in characters,
+     *                          from which on it is checked in parallel
+     * @return the spell checker
+     */
+    public static StreamingSpellChecker create(Map<DictionaryService, String> dictionaries, int parallelThreshold) {
+        DictionarySnapshot snapshot = DictionarySnapshot.EMPTY;
+        for (Map.Entry<DictionaryService, String> dictionary : dictionaries.entrySet()) {
+            // The dictionaries have the same ranking, so they are kept in the order of their arrival
+            snapshot = snapshot.with(dictionary.getKey(), dictionary.getKey(), dictionary.getValue(), 0, null);
+        }
+        DictionarySnapshot finalSnapshot = snapshot;
+        return new SpellCheckerImpl(() -> finalSnapshot, parallelThreshold);
+    }
+}
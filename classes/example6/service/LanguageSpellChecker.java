@@ -0,0 +1,38 @@
+package tutorial.example6.service;
+
+import java.util.Set;
+
+/**
+ * A spell checker service that checks a passage only against the
+ * dictionaries of the language the passage is written in, as named
+ * by the {@code Language} property of the dictionary services. The
+ * language can be given by the caller or detected from the passage
+ */
+public interface LanguageSpellChecker extends SpellChecker {
+
+    /**
+     * Returns the languages of the currently available dictionaries
+     * @return the languages of the available dictionaries
+     */
+    public Set<String> languages();
+
+    /**
+     * Detects the language of a given passage, as the language whose
+     * dictionaries contain the most of the first words of the passage
+     * @param passage the passage whose language is detected
+     * @return the language of the passage or null if no dictionaries
+     *         are available or none of them contains any of the words
+     */
+    public String detectLanguage(String passage);
+
+    /**
+     * Checks a given passage for spelling errors against the dictionaries
+     * of the given language only. If there are no dictionaries of that
+     * language, then all words of the passage are misspelled
+     * @param passage the passage to spell check
+     * @param language the language of the passage
+     * @return An array of misspelled words or null if no
+     *         words are misspelled
+     */
+    public String[] checkPassage(String passage, String language);
+}
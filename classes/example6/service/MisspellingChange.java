@@ -0,0 +1,55 @@
+package tutorial.example6.service;
+
+import java.util.List;
+
+/**
+ * Immutable change of the misspelled words of a document caused by an edit.
+ * The misspelled words that are neither removed nor added by the edit stay
+ * misspelled; those after the edited range only move by the difference
+ * between the lengths of the inserted and the removed text
+ */
+public final class MisspellingChange {
+
+    private final List<Misspelling> removed;
+    private final List<Misspelling> added;
+
+    /**
+     * Creates a change of the misspelled words
+     * @param removed the words no longer misspelled, at their offsets before the edit
+     * @param added the newly misspelled words, at their offsets after the edit
+     */
+    public MisspellingChange(List<Misspelling> removed, List<Misspelling> added) {
+        this.removed = List.copyOf(removed);
+        this.added = List.copyOf(added);
+    }
+
+    /**
+     * Returns the words that are no longer misspelled
+     * @return the removed misspelled words, at their offsets before the edit
+     */
+    public List<Misspelling> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * Returns the words that have become misspelled
+     * @return the added misspelled words, at their offsets after the edit
+     */
+    public List<Misspelling> getAdded() {
+        return added;
+    }
+
+    /**
+     * Determines if the edit has changed the misspelled words at all
+     * @return true if no misspelled words have been removed or added,
+     *         false otherwise
+     */
+    public boolean isEmpty() {
+        return removed.isEmpty() && added.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "removed " + removed + ", added " + added;
+    }
+}
@@ -0,0 +1,18 @@
+package tutorial.example6.service;
+
+/**
+ * A listener notified of misspelled words found
+ * while a stream of text is being spell checked.
+ */
+@FunctionalInterface
+public interface MisspellingListener {
+
+    /**
+     * Invoked for every misspelled word, in the order
+     * the words appear in the stream
+     * @param word the misspelled word
+     * @param offset the offset of the first character of the word,
+     *               counted in characters from the beginning of the stream
+     */
+    public void misspelled(String word, long offset);
+}
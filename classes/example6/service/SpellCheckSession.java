@@ -0,0 +1,37 @@
+package tutorial.example6.service;
+
+import java.util.List;
+
+/**
+ * Spell checking session of a document being edited. The session keeps
+ * the words of the document along with their verdicts, so that after an
+ * edit only the words touched by it have to be checked again, and reports
+ * how the edit has changed the misspelled words. A session is meant to be
+ * used by a single editor and isn't safe for use by multiple threads
+ */
+public interface SpellCheckSession {
+
+    /**
+     * Returns the current text of the document
+     * @return the text of the document
+     */
+    public String text();
+
+    /**
+     * Returns the misspelled words of the document
+     * @return the misspelled words, in the order of their offsets
+     */
+    public List<Misspelling> misspellings();
+
+    /**
+     * Replaces a range of the document with the given text and checks the words
+     * touched by the replacement. Inserting text is replacing an empty range,
+     * deleting it is replacing a range with an empty text
+     * @param offset the index of the first replaced character
+     * @param removedLength the number of replaced characters
+     * @param insertedText the text inserted in place of the replaced characters
+     * @return the change of the misspelled words of the document
+     * @throws IndexOutOfBoundsException if the range is outside the document
+     */
+    public MisspellingChange edit(int offset, int removedLength, String insertedText);
+}
@@ -0,0 +1,99 @@
+package tutorial.example6.spelling;
+
+import tutorial.example2.service.DictionaryService;
+import tutorial.example2.service.WordFilter;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Dictionary service placed in front of another one, which passes to it
+ * only the words that may be in it according to its published summary.
+ * Most misspelled words aren't in any dictionary, so checking them costs
+ * a single filter probe per dictionary instead of a complete look-up.
+ * Instances are immutable and can be shared between threads
+ */
+public final class FilteredDictionary implements DictionaryService {
+
+    private final DictionaryService dictionary;
+    private final WordFilter filter;
+
+    private FilteredDictionary(DictionaryService dictionary, WordFilter filter) {
+        this.dictionary = dictionary;
+        this.filter = filter;
+    }
+
+    /**
+     * Places the given dictionary service behind its summary, if it has published one
+     * @param dictionary the dictionary service
+     * @param filterProperty the value of the {@value WordFilter#PROPERTY} property
+     *                       of the dictionary service; null if it has none
+     * @return the filtered dictionary service, or the given one if it has no summary
+     */
+    public static DictionaryService of(DictionaryService dictionary, Object filterProperty) {
+        if (filterProperty instanceof WordFilter) {
+            return new FilteredDictionary(dictionary, (WordFilter) filterProperty);
+        }
+        return dictionary;
+    }
+
+    @Override
+    public boolean checkWord(String checkedWord) {
+        return checkedWord != null && checkWord(checkedWord, 0, checkedWord.length());
+    }
+
+    @Override
+    public BitSet checkWords(List<? extends CharSequence> checkedWords) {
+        BitSet hits = new BitSet(checkedWords.size());
+        for (int i = 0; i < checkedWords.size(); i++) {
+            CharSequence checkedWord = checkedWords.get(i);
+            if (checkedWord != null && checkWord(checkedWord, 0, checkedWord.length())) {
+                hits.set(i);
+            }
+        }
+        return hits;
+    }
+
+    @Override
+    public boolean checkWord(CharSequence text, int start, int end) {
+        return filter.mightContain(text, start, end) && dictionary.checkWord(text, start, end);
+    }
+
+    /**
+     * Passes only the words that may be in the dictionary to it
+     * @param text the text containing the words
+     * @param starts the indexes of the first characters of the words
+     * @param ends the indexes after the last characters of the words
+     * @param count the number of words
+     * @return set of the indexes of the words that are in the dictionary
+     */
+    @Override
+    public BitSet checkWords(CharSequence text, int[] starts, int[] ends, int count) {
+        int[] candidateIndexes = new int[count];
+        int candidateCount = 0;
+        for (int i = 0; i < count; i++) {
+            if (filter.mightContain(text, starts[i], ends[i])) {
+                candidateIndexes[candidateCount++] = i;
+            }
+        }
+        // No need to call the dictionary if it contains none or all of the words
+        if (candidateCount == 0) {
+            return new BitSet();
+        }
+        if (candidateCount == count) {
+            return dictionary.checkWords(text, starts, ends, count);
+        }
+        int[] candidateStarts = new int[candidateCount];
+        int[] candidateEnds = new int[candidateCount];
+        for (int j = 0; j < candidateCount; j++) {
+            candidateStarts[j] = starts[candidateIndexes[j]];
+            candidateEnds[j] = ends[candidateIndexes[j]];
+        }
+        BitSet candidateHits = dictionary.checkWords(text, candidateStarts, candidateEnds, candidateCount);
+        BitSet hits = new BitSet(count);
+        for (int j = candidateHits.nextSetBit(0); j >= 0; j = candidateHits.nextSetBit(j + 1)) {
+            hits.set(candidateIndexes[j]);
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,312 @@
+package tutorial.example6.spelling;
+
+import tutorial.example2.service.DictionaryService;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Spell checking engine shared by the spell checker services. It checks
+ * a passage against a set of dictionary services and returns the misspelled
+ * words in the order they appear in the passage. The passage is split into
+ * words by a {@link WordSegmenter} chosen for the language of the dictionaries.
+ * <p>
+ * Passages longer than the parallel threshold are split into chunks at word
+ * boundaries; the chunks are checked in parallel on a {@link ForkJoinPool}
+ * and their misspelled words are merged back in the passage order.
+ * <p>
+ * The verdicts on the checked words can be kept in a {@link VerdictCache},
+ * so that the words repeated across passages aren't looked up again
+ */
+public final class PassageChecker {
+
+    /**
+     * Default length of a passage, in characters, from which
+     * on it is checked in parallel
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 16;
+
+    // Length of a chunk, in characters, that is no longer split
+    private static final int CHUNK_LENGTH = 1 << 14;
+
+    private final int parallelThreshold;
+
+    /**
+     * Creates a checker with the default parallel threshold
+     */
+    public PassageChecker() {
+        this(DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Creates a checker with the given parallel threshold
+     * @param parallelThreshold the length of a passage, in characters,
+     *                          from which on it is checked in parallel
+     */
+    public PassageChecker(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Checks the given passage for misspelled words. Passages longer than
+     * the parallel threshold are checked on the common {@link ForkJoinPool}
+     * @param passage the passage to spell check
+     * @param dictionaries the dictionaries to check the words against
+     * @param segmenter the rules splitting the passage into words
+     * @return An array of misspelled words or null
+     *         if no words are misspelled
+     */
+    public String[] check(String passage, DictionaryService[] dictionaries, WordSegmenter segmenter) {
+        return check(passage, dictionaries, segmenter, (VerdictCache) null);
+    }
+
+    /**
+     * Checks the given passage for misspelled words, reusing and updating
+     * the cached verdicts. Passages longer than the parallel threshold
+     * are checked on the common {@link ForkJoinPool}
+     * @param passage the passage to spell check
+     * @param dictionaries the dictionaries to check the words against
+     * @param segmenter the rules splitting the passage into words
+     * @param cache the verdicts on the words checked against the same
+     *              dictionaries before, or null if none are cached
+     * @return An array of misspelled words or null
+     *         if no words are misspelled
+     */
+    public String[] check(String passage, DictionaryService[] dictionaries,
+                          WordSegmenter segmenter, VerdictCache cache) {
+        if (passage != null && passage.length() >= parallelThreshold) {
+            return check(passage, dictionaries, segmenter, cache, ForkJoinPool.commonPool());
+        }
+        // No misspelled words for an empty string
+        if (passage == null || passage.isEmpty()) {
+            return null;
+        }
+        return toResult(checkRange(passage, 0, passage.length(), dictionaries, segmenter, cache));
+    }
+
+    /**
+     * Checks the given passage for misspelled words, splitting it into
+     * chunks that are checked in parallel on the given pool
+     * @param passage the passage to spell check
+     * @param dictionaries the dictionaries to check the words against
+     * @param segmenter the rules splitting the passage into words
+     * @param pool the pool checking the chunks of the passage
+     * @return An array of misspelled words or null
+     *         if no words are misspelled
+     */
+    public String[] check(String passage, DictionaryService[] dictionaries,
+                          WordSegmenter segmenter, ForkJoinPool pool) {
+        return check(passage, dictionaries, segmenter, null, pool);
+    }
+
+    /**
+     * Checks the given passage for misspelled words, reusing and updating the
+     * cached verdicts, and splitting it into chunks that are checked in parallel
+     * on the given pool
+     * @param passage the passage to spell check
+     * @param dictionaries the dictionaries to check the words against
+     * @param segmenter the rules splitting the passage into words
+     * @param cache the verdicts on the words checked against the same
+     *              dictionaries before, or null if none are cached
+     * @param pool the pool checking the chunks of the passage
+     * @return An array of misspelled words or null
+     *         if no words are misspelled
+     */
+    public String[] check(String passage, DictionaryService[] dictionaries,
+                          WordSegmenter segmenter, VerdictCache cache, ForkJoinPool pool) {
+        // No misspelled words for an empty string
+        if (passage == null || passage.isEmpty()) {
+            return null;
+        }
+        return toResult(pool.invoke(new ChunkTask(passage, 0, passage.length(), dictionaries, segmenter, cache)));
+    }
+
+    /**
+     * Counts how many of the first words of the given text are found in the
+     * dictionaries, which tells how likely the text is to be in their language
+     * @param text the text whose words are counted
+     * @param maxWords the maximal number of words checked
+     * @param dictionaries the dictionaries to check the words against
+     * @param segmenter the rules splitting the text into words
+     * @param cache the cached verdicts, or null if none are cached
+     * @return the number of the checked words found in any of the dictionaries
+     */
+    public static int countCorrectWords(CharSequence text, int maxWords, DictionaryService[] dictionaries,
+                                        WordSegmenter segmenter, VerdictCache cache) {
+        TokenBuffer tokens = new TokenBuffer();
+        Tokenizer tokenizer = new Tokenizer(segmenter);
+        tokenizer.reset(text, 0, text.length());
+        while (tokens.count() < maxWords && tokenizer.next()) {
+            tokens.add(tokenizer.start(), tokenizer.end());
+        }
+        return findCorrectWords(text, tokens, dictionaries, cache).cardinality();
+    }
+
+    private static String[] toResult(List<String> errorList) {
+        // Return null if no words are incorrect
+        if (errorList.isEmpty()) {
+            return null;
+        }
+        // Return the array of incorrect words
+        return errorList.toArray(new String[errorList.size()]);
+    }
+
+    /**
+     * Checks the words of the given range of the passage. The words are
+     * looked up directly in the passage; strings are only created for
+     * the misspelled ones
+     * @return the misspelled words of the range
+     */
+    private static List<String> checkRange(String passage, int start, int end, DictionaryService[] dictionaries,
+                                           WordSegmenter segmenter, VerdictCache cache) {
+        // Tokenize the range into words
+        TokenBuffer tokens = new TokenBuffer();
+        new Tokenizer(segmenter).tokenize(passage, start, end, tokens);
+
+        // Words found in any of the dictionaries
+        BitSet correct = findCorrectWords(passage, tokens, dictionaries, cache);
+
+        /* The words that haven't been found in any
+           dictionary are the incorrect ones */
+        List<String> errorList = new ArrayList<>();
+        for (int i = correct.nextClearBit(0); i < tokens.count(); i = correct.nextClearBit(i + 1)) {
+            errorList.add(passage.substring(tokens.start(i), tokens.end(i)));
+        }
+        return errorList;
+    }
+
+    /**
+     * Checks the given words against the dictionaries, in their order.
+     * Words with a cached verdict aren't looked up; the verdicts on
+     * the other words are added to the cache
+     * @param text the text containing the words
+     * @param tokens the words to be checked
+     * @param dictionaries the dictionaries to check the words against
+     * @param cache the cached verdicts, or null if none are cached
+     * @return set of the indexes of the words found in any of the dictionaries
+     */
+    static BitSet findCorrectWords(CharSequence text, TokenBuffer tokens,
+                                   DictionaryService[] dictionaries, VerdictCache cache) {
+        BitSet correct = new BitSet(tokens.count());
+        // Words that are known to be correct or misspelled
+        BitSet resolved = new BitSet(tokens.count());
+
+        // Take the verdicts from the cache first
+        if (cache != null) {
+            for (int i = 0; i < tokens.count(); i++) {
+                int verdict = cache.get(text, tokens.start(i), tokens.end(i));
+                if (verdict >= 0) {
+                    resolved.set(i);
+                    correct.set(i, verdict == 1);
+                }
+            }
+        }
+        BitSet cached = cache == null ? null : (BitSet) resolved.clone();
+
+        /* Check the words against each dictionary in
+           a single call, until all the words are found */
+        for (int i = 0; (resolved.cardinality() < tokens.count()) && (i < dictionaries.length); i++) {
+            checkPendingWords(dictionaries[i], text, tokens, resolved, correct);
+        }
+
+        // Cache the verdicts on the looked up words
+        if (cache != null) {
+            for (int i = cached.nextClearBit(0); i < tokens.count(); i = cached.nextClearBit(i + 1)) {
+                cache.put(text, tokens.start(i), tokens.end(i), correct.get(i));
+            }
+        }
+        return correct;
+    }
+
+    /**
+     * Checks the words that haven't been resolved yet against the given
+     * dictionary and marks the ones that it contains as correct
+     * @param dictionaryService the dictionary to check the words against
+     * @param text the text containing the words
+     * @param tokens all words of the text
+     * @param resolved the words with a known verdict, updated in place
+     * @param correct the words found so far, updated in place
+     */
+    private static void checkPendingWords(DictionaryService dictionaryService, CharSequence text,
+                                          TokenBuffer tokens, BitSet resolved, BitSet correct) {
+        // Nothing has been resolved yet, so all the words are pending
+        if (resolved.isEmpty()) {
+            BitSet hits = dictionaryService.checkWords(text, tokens.starts, tokens.ends, tokens.count());
+            correct.or(hits);
+            resolved.or(hits);
+            return;
+        }
+        int pendingCount = tokens.count() - resolved.cardinality();
+        int[] pendingIndexes = new int[pendingCount];
+        int[] pendingStarts = new int[pendingCount];
+        int[] pendingEnds = new int[pendingCount];
+        for (int i = resolved.nextClearBit(0), j = 0; i < tokens.count(); i = resolved.nextClearBit(i + 1), j++) {
+            pendingIndexes[j] = i;
+            pendingStarts[j] = tokens.start(i);
+            pendingEnds[j] = tokens.end(i);
+        }
+        BitSet hits = dictionaryService.checkWords(text, pendingStarts, pendingEnds, pendingCount);
+        for (int j = hits.nextSetBit(0); j >= 0; j = hits.nextSetBit(j + 1)) {
+            correct.set(pendingIndexes[j]);
+            resolved.set(pendingIndexes[j]);
+        }
+    }
+
+    /**
+     * Finds the first word boundary at or after the given index
+     * @return the index of the first separator at or after the given
+     *         index, or the end of the passage if there is none
+     */
+    private static int boundaryFrom(String passage, int index, int end, WordSegmenter segmenter) {
+        while (index < end && !segmenter.isSeparator(passage.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Checks a range of the passage, splitting it in halves
+     * at word boundaries while it is longer than a chunk
+     */
+    private static final class ChunkTask extends RecursiveTask<List<String>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String passage;
+        private final int start;
+        private final int end;
+        private final DictionaryService[] dictionaries;
+        private final WordSegmenter segmenter;
+        private final VerdictCache cache;
+
+        private ChunkTask(String passage, int start, int end, DictionaryService[] dictionaries,
+                          WordSegmenter segmenter, VerdictCache cache) {
+            this.passage = passage;
+            this.start = start;
+            this.end = end;
+            this.dictionaries = dictionaries;
+            this.segmenter = segmenter;
+            this.cache = cache;
+        }
+
+        @Override
+        protected List<String> compute() {
+            if (end - start > CHUNK_LENGTH) {
+                int middle = boundaryFrom(passage, start + (end - start) / 2, end, segmenter);
+                // A range without any boundary in its second half can't be split
+                if (middle < end) {
+                    ChunkTask left = new ChunkTask(passage, start, middle, dictionaries, segmenter, cache);
+                    ChunkTask right = new ChunkTask(passage, middle, end, dictionaries, segmenter, cache);
+                    right.fork();
+                    List<String> errorList = left.compute();
+                    errorList.addAll(right.join());
+                    return errorList;
+                }
+            }
+            return checkRange(passage, start, end, dictionaries, segmenter, cache);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package tutorial.example6.spelling;
+
+import tutorial.example2.service.DictionaryService;
+import tutorial.example6.service.MisspellingListener;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.BitSet;
+
+/**
+ * Spell checking engine for streams of text. The text is read into a
+ * buffer of a fixed size; the complete words of the buffer are checked
+ * in a batch and the misspelled ones are passed to a listener right
+ * away, together with their offsets. A word cut off at the end of the
+ * buffer is moved to its beginning and completed by the next read, so
+ * the memory used doesn't depend on the length of the text. A word that
+ * doesn't fit into the buffer at all is checked in buffer-sized pieces.
+ * The verdicts on the checked words can be kept in a {@link VerdictCache}
+ */
+public final class StreamChecker {
+
+    /**
+     * Default length of the buffer, in characters
+     */
+    public static final int DEFAULT_BUFFER_LENGTH = 1 << 13;
+
+    private final int bufferLength;
+
+    /**
+     * Creates a checker with the default buffer length
+     */
+    public StreamChecker() {
+        this(DEFAULT_BUFFER_LENGTH);
+    }
+
+    /**
+     * Creates a checker with the given buffer length
+     * @param bufferLength the length of the buffer, in characters
+     */
+    public StreamChecker(int bufferLength) {
+        this.bufferLength = bufferLength;
+    }
+
+    /**
+     * Checks the text read from the given reader for misspelled words.
+     * The reader is read until its end, but isn't closed
+     * @param reader the reader of the text to spell check
+     * @param dictionaries the dictionaries to check the words against
+     * @param segmenter the rules splitting the text into words
+     * @param listener the listener notified of every misspelled word
+     * @throws IOException if the text cannot be read
+     */
+    public void check(Reader reader, DictionaryService[] dictionaries, WordSegmenter segmenter,
+                      MisspellingListener listener) throws IOException {
+        check(reader, dictionaries, segmenter, null, listener);
+    }
+
+    /**
+     * Checks the text read from the given reader for misspelled words, reusing
+     * and updating the cached verdicts. The reader is read until its end, but isn't closed
+     * @param reader the reader of the text to spell check
+     * @param dictionaries the dictionaries to check the words against
+     * @param segmenter the rules splitting the text into words
+     * @param cache the verdicts on the words checked against the same
+     *              dictionaries before, or null if none are cached
+     * @param listener the listener notified of every misspelled word
+     * @throws IOException if the text cannot be read
+     */
+    public void check(Reader reader, DictionaryService[] dictionaries, WordSegmenter segmenter,
+                      VerdictCache cache, MisspellingListener listener) throws IOException {
+        char[] buffer = new char[bufferLength];
+        // View of the buffer, in which the words are looked up
+        CharBuffer text = CharBuffer.wrap(buffer);
+        Tokenizer tokenizer = new Tokenizer(segmenter);
+        TokenBuffer tokens = new TokenBuffer();
+        // Number of characters in the buffer
+        int length = 0;
+        // Offset in the stream of the first character of the buffer
+        long bufferOffset = 0;
+        boolean endOfStream = false;
+
+        while (!endOfStream || length > 0) {
+            // Fill the buffer
+            while (!endOfStream && length < buffer.length) {
+                int read = reader.read(buffer, length, buffer.length - length);
+                if (read < 0) {
+                    endOfStream = true;
+                } else {
+                    length += read;
+                }
+            }
+
+            /* Only the words followed by a delimiter are complete,
+               unless the stream has ended or the buffer holds a single word */
+            int limit = endOfStream ? length : lastBoundary(buffer, length, segmenter);
+            if (limit == 0) {
+                limit = length;
+            }
+            checkRange(text, limit, bufferOffset, tokenizer, tokens, dictionaries, cache, listener);
+
+            // Move the incomplete word to the beginning of the buffer
+            System.arraycopy(buffer, limit, buffer, 0, length - limit);
+            length -= limit;
+            bufferOffset += limit;
+        }
+    }
+
+    /**
+     * Checks the words of the buffer up to the given limit
+     */
+    private static void checkRange(CharBuffer text, int limit, long bufferOffset, Tokenizer tokenizer,
+                                   TokenBuffer tokens, DictionaryService[] dictionaries,
+                                   VerdictCache cache, MisspellingListener listener) {
+        tokens.clear();
+        tokenizer.tokenize(text, 0, limit, tokens);
+        BitSet correct = PassageChecker.findCorrectWords(text, tokens, dictionaries, cache);
+        for (int i = correct.nextClearBit(0); i < tokens.count(); i = correct.nextClearBit(i + 1)) {
+            String word = text.subSequence(tokens.start(i), tokens.end(i)).toString();
+            listener.misspelled(word, bufferOffset + tokens.start(i));
+        }
+    }
+
+    /**
+     * Finds the end of the last complete word of the buffer
+     * @return the index after the last separator of the buffer, or 0 if there is none
+     */
+    private static int lastBoundary(char[] buffer, int length, WordSegmenter segmenter) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (segmenter.isSeparator(buffer[i])) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+}
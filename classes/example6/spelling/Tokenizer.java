@@ -0,0 +1,116 @@
+package tutorial.example6.spelling;
+
+/**
+ * Splits a text into words without creating any strings. Unlike
+ * {@link java.util.StringTokenizer}, it hands out the offsets of the
+ * words in the text, so that a word can be looked up in a dictionary
+ * directly in the text and a string is only created for a word that
+ * actually has to be reported. The words are delimited according to
+ * a {@link WordSegmenter}. A tokenizer can be reset and reused for any
+ * number of texts, but mustn't be shared between threads
+ */
+public final class Tokenizer {
+
+    private final WordSegmenter segmenter;
+
+    private CharSequence text;
+    private int position;
+    private int limit;
+    private int tokenStart;
+    private int tokenEnd;
+
+    /**
+     * Creates a tokenizer splitting words according to the given segmenter
+     * @param segmenter the rules splitting a text into words
+     */
+    public Tokenizer(WordSegmenter segmenter) {
+        this.segmenter = segmenter;
+    }
+
+    /**
+     * Starts tokenizing the given range of a text
+     * @param text the text to be tokenized
+     * @param start the index of the first character of the range
+     * @param end the index after the last character of the range
+     */
+    public void reset(CharSequence text, int start, int end) {
+        this.text = text;
+        this.position = start;
+        this.limit = end;
+    }
+
+    /**
+     * Advances to the next word of the text
+     * @return true if there is another word,
+     *         false if the end of the range has been reached
+     */
+    public boolean next() {
+        while (position < limit) {
+            // Skip everything up to the first character of a word
+            byte characterClass = segmenter.classAt(text, position, limit);
+            if (characterClass != WordSegmenter.LETTER && characterClass != WordSegmenter.WORD_PART) {
+                position += segmenter.charCountAt(text, position, limit);
+                continue;
+            }
+            tokenStart = position;
+            boolean hasLetter = false;
+            while (position < limit) {
+                if (characterClass == WordSegmenter.LETTER) {
+                    hasLetter = true;
+                } else if (characterClass == WordSegmenter.JOINER) {
+                    // A joiner belongs to the word only if the word continues after it
+                    int next = position + 1;
+                    if (next == limit || !isWordCharacter(segmenter.classAt(text, next, limit))) {
+                        break;
+                    }
+                } else if (characterClass != WordSegmenter.WORD_PART) {
+                    break;
+                }
+                position += segmenter.charCountAt(text, position, limit);
+                if (position < limit) {
+                    characterClass = segmenter.classAt(text, position, limit);
+                }
+            }
+            tokenEnd = position;
+            // Words without letters, such as numbers, aren't spell checked
+            if (hasLetter) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the index of the first character of the current word
+     * @return the index of the first character of the current word
+     */
+    public int start() {
+        return tokenStart;
+    }
+
+    /**
+     * Returns the index after the last character of the current word
+     * @return the index after the last character of the current word
+     */
+    public int end() {
+        return tokenEnd;
+    }
+
+    /**
+     * Appends all words of the given range of a text to the buffer
+     * @param text the text to be tokenized
+     * @param start the index of the first character of the range
+     * @param end the index after the last character of the range
+     * @param tokens the buffer the words are appended to
+     */
+    public void tokenize(CharSequence text, int start, int end, TokenBuffer tokens) {
+        reset(text, start, end);
+        while (next()) {
+            tokens.add(tokenStart, tokenEnd);
+        }
+    }
+
+    private static boolean isWordCharacter(byte characterClass) {
+        return characterClass == WordSegmenter.LETTER || characterClass == WordSegmenter.WORD_PART;
+    }
+}
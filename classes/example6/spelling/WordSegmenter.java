@@ -0,0 +1,187 @@
+package tutorial.example6.spelling;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rules splitting a text into words, selected by the language of the text.
+ * Every character of the Basic Multilingual Plane is assigned a class in a
+ * table precomputed from the Unicode character categories, so that splitting
+ * costs a single array read per character:
+ * <ul>
+ *     <li>letters, digits and combining marks make up words;</li>
+ *     <li>joiners, such as the apostrophe in "l'univers", belong to a word
+ *         only if they are surrounded by its characters;</li>
+ *     <li>all other characters, including whitespace, punctuation, quotes
+ *         and symbols, separate words.</li>
+ * </ul>
+ * Words without any letter, such as numbers, aren't words to be spell checked
+ * and are skipped. Characters outside the Basic Multilingual Plane are classified
+ * by their code points. Instances are immutable and can be shared between threads
+ */
+public final class WordSegmenter {
+
+    static final byte SEPARATOR = 0;
+    static final byte LETTER = 1;
+    // Digits and combining marks: parts of a word, but not letters
+    static final byte WORD_PART = 2;
+    static final byte JOINER = 3;
+    static final byte SURROGATE = 4;
+
+    // Apostrophe and right single quotation mark
+    private static final String APOSTROPHES = "'\u2019";
+    // Hyphen-minus and hyphen
+    private static final String HYPHENS = "-\u2010";
+
+    // Classes of all characters, without any joiners
+    private static final byte[] UNICODE_CLASSES = unicodeClasses();
+
+    // Joiners of the known languages; other languages use the default ones
+    private static final Map<String, String> LANGUAGE_JOINERS = Map.of(
+            "English", APOSTROPHES,
+            "French", APOSTROPHES + HYPHENS
+    );
+
+    /**
+     * Segmenter for a text in an unknown language
+     */
+    public static final WordSegmenter DEFAULT = new WordSegmenter(APOSTROPHES);
+
+    /**
+     * Segmenter splitting words only at a space and the following punctuation
+     * marks: comma (,), period (.), exclamation mark (!), question mark (?),
+     * semi-colon (;), and colon(:), the same way the spell checkers originally did
+     */
+    public static final WordSegmenter CLASSIC = classic(" ,.!?;:");
+
+    private static final Map<String, WordSegmenter> SEGMENTERS = new ConcurrentHashMap<>();
+
+    // Class of every character of the Basic Multilingual Plane
+    private final byte[] classes;
+    // Whether the classes of surrogate pairs come from their code points
+    private final boolean unicode;
+
+    private WordSegmenter(String joiners) {
+        this.classes = UNICODE_CLASSES.clone();
+        for (int i = 0; i < joiners.length(); i++) {
+            classes[joiners.charAt(i)] = JOINER;
+        }
+        this.unicode = true;
+    }
+
+    private WordSegmenter(byte[] classes) {
+        this.classes = classes;
+        this.unicode = false;
+    }
+
+    /**
+     * Returns the segmenter for a text in the given language,
+     * as named by the {@code Language} property of the dictionary services
+     * @param language the language of the text
+     * @return the segmenter for the language
+     */
+    public static WordSegmenter forLanguage(String language) {
+        return forJoiners(LANGUAGE_JOINERS.getOrDefault(language, APOSTROPHES));
+    }
+
+    /**
+     * Returns the segmenter for a text checked against dictionaries of the
+     * given languages. A character joining words in any of the languages
+     * joins words, so that every dictionary gets the words in its own form
+     * @param languages the languages of the dictionaries
+     * @return the segmenter for the languages
+     */
+    public static WordSegmenter forLanguages(Collection<String> languages) {
+        if (languages.isEmpty()) {
+            return DEFAULT;
+        }
+        TreeSet<Character> joiners = new TreeSet<>();
+        for (String language : languages) {
+            LANGUAGE_JOINERS.getOrDefault(language, APOSTROPHES).chars().forEach(joiner -> joiners.add((char) joiner));
+        }
+        StringBuilder joinersString = new StringBuilder();
+        joiners.forEach(joinersString::append);
+        return forJoiners(joinersString.toString());
+    }
+
+    private static WordSegmenter forJoiners(String joiners) {
+        return APOSTROPHES.equals(joiners) ? DEFAULT : SEGMENTERS.computeIfAbsent(joiners, WordSegmenter::new);
+    }
+
+    /**
+     * Creates a segmenter splitting words only at the given delimiters
+     * @param delimiters the characters separating words
+     * @return the segmenter splitting words at the delimiters
+     */
+    public static WordSegmenter classic(String delimiters) {
+        byte[] classes = new byte[Character.MAX_VALUE + 1];
+        Arrays.fill(classes, LETTER);
+        for (int i = 0; i < delimiters.length(); i++) {
+            classes[delimiters.charAt(i)] = SEPARATOR;
+        }
+        return new WordSegmenter(classes);
+    }
+
+    /**
+     * Determines if the given character always separates words, so that
+     * a text can be safely split into independent parts at that character
+     * @param character the checked character
+     * @return true if the character is a separator,
+     *         false otherwise
+     */
+    public boolean isSeparator(char character) {
+        return classes[character] == SEPARATOR;
+    }
+
+    /**
+     * Returns the class of the character at the given index,
+     * classifying surrogate pairs by their code points
+     */
+    byte classAt(CharSequence text, int index, int end) {
+        byte characterClass = classes[text.charAt(index)];
+        if (characterClass != SURROGATE || !unicode) {
+            return characterClass;
+        }
+        char high = text.charAt(index);
+        if (Character.isHighSurrogate(high) && index + 1 < end && Character.isLowSurrogate(text.charAt(index + 1))) {
+            return classOf(Character.toCodePoint(high, text.charAt(index + 1)));
+        }
+        return SEPARATOR;
+    }
+
+    /**
+     * Returns the number of characters of the character at the given index
+     */
+    int charCountAt(CharSequence text, int index, int end) {
+        return unicode && Character.isHighSurrogate(text.charAt(index))
+               && index + 1 < end && Character.isLowSurrogate(text.charAt(index + 1)) ? 2 : 1;
+    }
+
+    private static byte[] unicodeClasses() {
+        byte[] classes = new byte[Character.MAX_VALUE + 1];
+        for (int character = 0; character <= Character.MAX_VALUE; character++) {
+            classes[character] = Character.isSurrogate((char) character) ? SURROGATE : classOf(character);
+        }
+        return classes;
+    }
+
+    private static byte classOf(int codePoint) {
+        if (Character.isLetter(codePoint)) {
+            return LETTER;
+        }
+        if (Character.isDigit(codePoint)) {
+            return WORD_PART;
+        }
+        switch (Character.getType(codePoint)) {
+            case Character.NON_SPACING_MARK:
+            case Character.COMBINING_SPACING_MARK:
+            case Character.ENCLOSING_MARK:
+                return WORD_PART;
+            default:
+                return SEPARATOR;
+        }
+    }
+}
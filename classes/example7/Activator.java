@@ -4,13 +4,11 @@ import org.osgi.framework.BundleActivator;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.Filter;
 import org.osgi.util.tracker.ServiceTracker;
+import tutorial.example2.client.ConsoleLoop;
 import tutorial.example6.service.SpellChecker;
+import tutorial.example6.service.StreamingSpellChecker;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.nio.file.Paths;
 import java.util.stream.Stream;
 
 /**
@@ -18,85 +16,113 @@ import java.util.stream.Stream;
  * service to check the spelling of a passage. This bundle
  * is essentially identical to Example 5, in that it uses the
  * Service Tracker to monitor the dynamic availability of the
- * spell checker service. When starting this bundle, the thread
- * calling the start() method is used to read passages from
- * standard input. You can stop spell checking passages by
+ * spell checker service. When starting this bundle, a console
+ * loop is started to read passages from standard input, so that
+ * the start() method returns right away; the loop is cancelled with
+ * the bundle. You can stop spell checking passages by
  * entering an empty line, but to start spell checking again
  * you must stop and then restart the bundle.
+ * <p>
+ * If the {@value #BATCH_DIRECTORY_PROPERTY} framework property names
+ * a directory, the bundle checks the text files of that directory tree
+ * instead of reading passages, and prints the misspelled words along
+ * with their files, lines and columns, or writes them to the file named
+ * by the {@value #BATCH_OUTPUT_PROPERTY} property. The checked files
+ * are those whose names match the glob pattern of the
+ * {@value #BATCH_PATTERN_PROPERTY} property, {@value #DEFAULT_BATCH_PATTERN}
+ * by default.
  */
 public class Activator implements BundleActivator {
 
-    private static final Logger LOGGER = Logger.getLogger(Activator.class.getName());
+    static final String BATCH_DIRECTORY_PROPERTY = "tutorial.example7.batch.directory";
+    static final String BATCH_PATTERN_PROPERTY = "tutorial.example7.batch.pattern";
+    static final String BATCH_OUTPUT_PROPERTY = "tutorial.example7.batch.output";
+    static final String DEFAULT_BATCH_PATTERN = "*.txt";
 
     // Bundle's context
     private BundleContext context = null;
     // The service tracker object
-    private ServiceTracker serviceTracker = null;
+    private ServiceTracker<SpellChecker, SpellChecker> serviceTracker = null;
+    // Loop reading passages from standard input
+    private ConsoleLoop passageLoop = null;
+    // Check of the files of a directory tree, run instead of the loop
+    private BatchCheck batchCheck = null;
 
     /**
      * Creates a Service Tracker object to monitor spell checker
-     * services. Enters a spell check loop where it reads passages
-     * from standard input and checks their spelling using the
-     * spell checker service
-     * (NOTE: It is very bad practice to use the calling thread to perform
-     * a lengthy process like this; this is only done for the purpose
-     * of the tutorial)
+     * services. Starts a spell check console loop, where
+     * it reads passages from standard input and checks their spelling
+     * using the spell checker service. In the batch mode, starts the
+     * check of the directory tree on a separate thread instead
      * @param context the framework context for the bundle
      */
     @Override
     public void start(BundleContext context) throws Exception {
         this.context = context;
+        String batchDirectory = context.getProperty(BATCH_DIRECTORY_PROPERTY);
 
-        // Create a service tracker to monitor spell check services
-        String spellServiceName = SpellChecker.class.getName();
+        /* Create a service tracker to monitor spell check services;
+           the batch mode needs the offsets of the misspelled words,
+           which only the streaming spell checkers report */
+        String spellServiceName = batchDirectory == null ? SpellChecker.class.getName()
+                                                         : StreamingSpellChecker.class.getName();
         Filter filter = this.context.createFilter(String.format("(objectClass=%s)", spellServiceName));
-        serviceTracker = new ServiceTracker(this.context, filter, null);
+        serviceTracker = new ServiceTracker<>(this.context, filter, null);
         serviceTracker.open();
 
-        try {
-            System.out.println("Enter a blank line to exit");
-            BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
-            String passage = "";
-
-            // Loop endlessly
-            while (true) {
-                // Ask the user to enter a word
-                System.out.println("Enter passage:");
-                passage = in.readLine();
-
-                // Get the selected spell checker service, if available
-                SpellChecker spellChecker = (SpellChecker) serviceTracker.getService();
-
-                // If the user entered a blank line, then exit the loop
-                if (passage.isEmpty()) {
-                    break;
-                }
-                // If there is no spell checker, then say so
-                else if (spellChecker == null) {
-                    System.out.println("No spell checker available");
-                }
-                // Otherwise check passage and print misspelled words
-                else {
-                    String[] errors = spellChecker.checkPassage(passage);
-                    if (errors == null) {
-                        System.out.println("The passage is correct");
-                    } else {
-                        System.out.println("Incorrect word(s):");
-                        Stream.of(errors).forEach(word -> System.out.println("  " + word));
-                    }
-                }
-            }
-        } catch (IOException exception) {
-            LOGGER.log(Level.SEVERE, exception.getMessage(), exception);
+        if (batchDirectory != null) {
+            String pattern = context.getProperty(BATCH_PATTERN_PROPERTY);
+            String output = context.getProperty(BATCH_OUTPUT_PROPERTY);
+            batchCheck = BatchCheck.start(serviceTracker, Paths.get(batchDirectory),
+                                          pattern == null ? DEFAULT_BATCH_PATTERN : pattern,
+                                          output == null ? null : Paths.get(output));
+            return;
         }
+        ServiceTracker<SpellChecker, SpellChecker> tracker = serviceTracker;
+        passageLoop = ConsoleLoop.start("Enter passage:",
+                                        passage -> checkPassage(tracker, passage));
     }
 
     /**
-     * Does nothing since the framework will automatically unget any used services
+     * Stops reading passages or checking files. The framework will automatically
+     * unget any used services
      * @param context the framework context for the bundle
      */
     @Override
     public void stop(BundleContext context) throws Exception {
+        if (passageLoop != null) {
+            passageLoop.cancel();
+            passageLoop = null;
+        }
+        if (batchCheck != null) {
+            batchCheck.cancel();
+            batchCheck = null;
+        }
         // NOTE: The service is automatically released
     }
+
+    /**
+     * Spell checks the entered passage and prints the misspelled words
+     * @param tracker the tracker of the spell checker services
+     * @param passage the entered passage
+     */
+    private static void checkPassage(ServiceTracker<SpellChecker, SpellChecker> tracker, String passage) {
+        // Get the selected spell checker service, if available
+        SpellChecker spellChecker = tracker.getService();
+
+        // If there is no spell checker, then say so
+        if (spellChecker == null) {
+            System.out.println("No spell checker available");
+        }
+        // Otherwise check passage and print misspelled words
+        else {
+            String[] errors = spellChecker.checkPassage(passage);
+            if (errors == null) {
+                System.out.println("The passage is correct");
+            } else {
+                System.out.println("Incorrect word(s):");
+                Stream.of(errors).forEach(word -> System.out.println("  " + word));
+            }
+        }
+    }
 }
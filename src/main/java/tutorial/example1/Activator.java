@@ -4,51 +4,141 @@ import org.osgi.framework.BundleActivator;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceEvent;
 import org.osgi.framework.ServiceListener;
+import tutorial.example1.service.ChurnMetrics;
 
 /**
  * This class implements a simple bundle that utilizes the OSGi
  * framework's events mechanism to listen for service events. Upon
  * Receiving a service event, it prints out the event's details.
+ * With the {@value #MODE_PROPERTY} framework property set to
+ * {@value #ASYNC}, the details are printed on a separate thread,
+ * so that the framework's event delivery doesn't wait for printing.
+ * Apart from printing, the bundle records the service registry churn
+ * and registers a service through which other bundles can query it.
+ * The first use of the registered services is checked every
+ * {@value #FIRST_USE_CHECK_PERIOD_PROPERTY} milliseconds, for at most
+ * {@value #FIRST_USE_TIMEOUT_PROPERTY} milliseconds; invalid values of
+ * the properties are replaced with the defaults.
  */
 public class Activator implements BundleActivator, ServiceListener {
 
+    static final String MODE_PROPERTY = "tutorial.example1.mode";
+    static final String ASYNC = "async";
+    // Framework property with the maximal number of events waiting to be printed
+    static final String QUEUE_CAPACITY_PROPERTY = "tutorial.example1.queueCapacity";
+    static final int DEFAULT_QUEUE_CAPACITY = 8192;
+    // Framework properties with the period and the timeout of the checks of the first use of the services
+    static final String FIRST_USE_CHECK_PERIOD_PROPERTY = "tutorial.example1.firstUseCheckPeriod";
+    static final long DEFAULT_FIRST_USE_CHECK_PERIOD_MILLIS = 10;
+    static final String FIRST_USE_TIMEOUT_PROPERTY = "tutorial.example1.firstUseTimeout";
+    static final long DEFAULT_FIRST_USE_TIMEOUT_MILLIS = 60_000;
+
+    // Prints the events in the asynchronous mode; null in the synchronous one
+    private AsyncEventPrinter asyncPrinter = null;
+    // Records the service registry churn
+    private ChurnRecorder churnRecorder = null;
+
     /**
      * Prints a message and adds itself to the bundle
-     * context as a service listener
+     * context as a service listener, along with the recorder of
+     * the service registry churn, which is registered as a service
      * @param context the framework context for the bundle
      */
     @Override
     public void start(BundleContext context) throws Exception {
         System.out.println("Starting to listen for service events.");
-        context.addServiceListener(this);
+        churnRecorder = new ChurnRecorder(
+                positiveProperty(context, FIRST_USE_CHECK_PERIOD_PROPERTY, DEFAULT_FIRST_USE_CHECK_PERIOD_MILLIS),
+                positiveProperty(context, FIRST_USE_TIMEOUT_PROPERTY, DEFAULT_FIRST_USE_TIMEOUT_MILLIS));
+        context.addServiceListener(churnRecorder);
+        context.registerService(ChurnMetrics.class.getName(), churnRecorder, null);
+        if (ASYNC.equals(context.getProperty(MODE_PROPERTY))) {
+            asyncPrinter = new AsyncEventPrinter(
+                    (int) Math.min(Integer.MAX_VALUE,
+                                   positiveProperty(context, QUEUE_CAPACITY_PROPERTY, DEFAULT_QUEUE_CAPACITY)));
+            context.addServiceListener(asyncPrinter);
+        } else {
+            context.addServiceListener(this);
+        }
     }
 
     /**
      * Prints a message and removes itself from the bundle
-     * context as a service listener.
+     * context as a service listener. In the asynchronous mode, the
+     * queued events are printed first, followed by the number of the
+     * events dropped because too many of them were waiting
      * @param context the framework context for the bundle
      */
     @Override
     public void stop(BundleContext context) throws Exception {
-        context.removeServiceListener(this);
+        if (asyncPrinter != null) {
+            context.removeServiceListener(asyncPrinter);
+            asyncPrinter.close();
+            if (asyncPrinter.droppedCount() > 0) {
+                System.out.println("Ex1: " + asyncPrinter.droppedCount() + " service events dropped.");
+            }
+            asyncPrinter = null;
+        } else {
+            context.removeServiceListener(this);
+        }
+        context.removeServiceListener(churnRecorder);
+        churnRecorder.close();
+        churnRecorder = null;
         System.out.println("Stopped listening for service events.");
         /* It is not required that we remove the listener here, since the
            framework will do it automatically anyway */
     }
 
+    /**
+     * Reads a positive number from a framework property
+     * @param context the framework context for the bundle
+     * @param name the name of the property
+     * @param defaultValue the value used if the property isn't set or isn't a positive number
+     * @return the value of the property
+     */
+    static long positiveProperty(BundleContext context, String name, long defaultValue) {
+        String value = context.getProperty(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            long parsed = Long.parseLong(value.trim());
+            if (parsed > 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException exception) {
+            // Replaced with the default below
+        }
+        System.out.println("Ex1: Invalid value '" + value + "' of " + name + ", using " + defaultValue + ".");
+        return defaultValue;
+    }
+
     /**
      * Prints the details of any service event from the framework
      * @param event the fired service event
      */
     @Override
     public void serviceChanged(ServiceEvent event) {
+        String message = describe(event);
+        if (message != null) {
+            System.out.println(message);
+        }
+    }
+
+    /**
+     * Describes the given service event
+     * @param event the fired service event
+     * @return the details of the event, or null if it isn't printed
+     */
+    static String describe(ServiceEvent event) {
         String[] objectClass = (String[]) event.getServiceReference().getProperty("objectClass");
         if (event.getType() == ServiceEvent.REGISTERED) {
-            System.out.println("Ex1: Service of type " + objectClass[0] + " registered.");
+            return "Ex1: Service of type " + objectClass[0] + " registered.";
         } else if (event.getType() == ServiceEvent.UNREGISTERING) {
-            System.out.println("Ex1: Service of type " + objectClass[0] + " unregistered.");
+            return "Ex1: Service of type " + objectClass[0] + " unregistered.";
         } else if (event.getType() == ServiceEvent.MODIFIED) {
-            System.out.println("Ex1: Service of type " + objectClass[0] + " modified.");
+            return "Ex1: Service of type " + objectClass[0] + " modified.";
         }
+        return null;
     }
 }
@@ -0,0 +1,190 @@
+package tutorial.example1;
+
+import org.osgi.framework.Constants;
+import org.osgi.framework.ServiceEvent;
+import org.osgi.framework.ServiceListener;
+import org.osgi.framework.ServiceReference;
+import tutorial.example1.service.ChurnMetrics;
+import tutorial.example1.service.ChurnSnapshot;
+import tutorial.example1.service.Histogram;
+import tutorial.example1.service.HistogramSnapshot;
+import tutorial.example1.service.ObjectClassChurn;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Service listener that records the service registry churn: it counts the
+ * service events by object class and type and records the intervals between
+ * them, without any locking on the framework's event delivery thread.
+ * <p>
+ * A service listener isn't told when a service is got, so the registered
+ * services that haven't been used yet are checked periodically for bundles
+ * using them; the time from the registration of a service to the check that
+ * found it in use is recorded as its first use latency. The checks only run
+ * while any such services are pending, and a service not used within the
+ * first use timeout stops being checked and is counted as unused, so that
+ * the registry isn't polled for services that are never got
+ */
+class ChurnRecorder implements ServiceListener, ChurnMetrics {
+
+    // Event metrics of every object class
+    private final Map<String, ObjectClassMetrics> objectClasses = new ConcurrentHashMap<>();
+    // Registration times of the services that haven't been used yet, by service ID
+    private final Map<Long, PendingService> pendingServices = new ConcurrentHashMap<>();
+    private final Histogram firstUseLatency = new Histogram();
+    private final LongAdder unusedCount = new LongAdder();
+    private final long checkPeriodMillis;
+    private final long firstUseTimeoutNanos;
+    private final ScheduledExecutorService firstUseChecker = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "Ex1 first service use checker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Guards the scheduling of the periodic check
+    private final Object checkLock = new Object();
+    // The periodic check of the pending services, or null while none are pending
+    private volatile ScheduledFuture<?> firstUseCheck = null;
+
+    /**
+     * Creates a recorder
+     * @param checkPeriodMillis the period of the checks of the first use of the registered services
+     * @param firstUseTimeoutMillis how long a registered service is checked for its first use
+     */
+    ChurnRecorder(long checkPeriodMillis, long firstUseTimeoutMillis) {
+        this.checkPeriodMillis = checkPeriodMillis;
+        this.firstUseTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(firstUseTimeoutMillis);
+    }
+
+    /**
+     * Records the service event under every object class of its service
+     * @param event the fired service event
+     */
+    @Override
+    public void serviceChanged(ServiceEvent event) {
+        long now = System.nanoTime();
+        ServiceReference<?> reference = event.getServiceReference();
+        if (event.getType() != ServiceEvent.REGISTERED && event.getType() != ServiceEvent.MODIFIED
+            && event.getType() != ServiceEvent.UNREGISTERING) {
+            return;
+        }
+        for (String objectClass : (String[]) reference.getProperty(Constants.OBJECTCLASS)) {
+            objectClasses.computeIfAbsent(objectClass, name -> new ObjectClassMetrics()).record(event.getType(), now);
+        }
+
+        Long serviceId = (Long) reference.getProperty(Constants.SERVICE_ID);
+        if (event.getType() == ServiceEvent.REGISTERED) {
+            pendingServices.put(serviceId, new PendingService(reference, now));
+            if (firstUseCheck == null) {
+                scheduleFirstUseCheck();
+            }
+        } else if (event.getType() == ServiceEvent.UNREGISTERING && pendingServices.remove(serviceId) != null) {
+            unusedCount.increment();
+        }
+    }
+
+    /**
+     * Takes a snapshot of the service registry churn recorded so far
+     * @return the snapshot of the service registry churn
+     */
+    @Override
+    public ChurnSnapshot snapshot() {
+        Map<String, ObjectClassChurn> churn = new HashMap<>();
+        objectClasses.forEach((objectClass, metrics) -> churn.put(objectClass, metrics.snapshot()));
+        return new ChurnSnapshot(System.currentTimeMillis(), churn, firstUseLatency.snapshot(), unusedCount.sum());
+    }
+
+    /**
+     * Stops checking the first use of the registered services
+     */
+    void close() {
+        firstUseChecker.shutdownNow();
+    }
+
+    private void scheduleFirstUseCheck() {
+        synchronized (checkLock) {
+            if (firstUseCheck == null && !firstUseChecker.isShutdown()) {
+                firstUseCheck = firstUseChecker.scheduleAtFixedRate(this::checkFirstUse, checkPeriodMillis,
+                                                                    checkPeriodMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void checkFirstUse() {
+        long now = System.nanoTime();
+        pendingServices.values().removeIf(service -> {
+            if (service.reference.getUsingBundles() != null) {
+                firstUseLatency.record(now - service.registeredNanos);
+                return true;
+            }
+            if (now - service.registeredNanos > firstUseTimeoutNanos) {
+                unusedCount.increment();
+                return true;
+            }
+            return false;
+        });
+        if (pendingServices.isEmpty()) {
+            synchronized (checkLock) {
+                firstUseCheck.cancel(false);
+                firstUseCheck = null;
+            }
+            // A service registered while the check was being cancelled may have seen it still scheduled
+            if (!pendingServices.isEmpty()) {
+                scheduleFirstUseCheck();
+            }
+        }
+    }
+
+    /**
+     * Registered service that hasn't been used yet
+     */
+    private static final class PendingService {
+
+        private final ServiceReference<?> reference;
+        private final long registeredNanos;
+
+        private PendingService(ServiceReference<?> reference, long registeredNanos) {
+            this.reference = reference;
+            this.registeredNanos = registeredNanos;
+        }
+    }
+
+    /**
+     * Counters and interval histograms of the events of a single object class,
+     * at the indexes given by {@link ObjectClassChurn#indexOf(int)}
+     */
+    private static final class ObjectClassMetrics {
+
+        private final LongAdder[] counts = {new LongAdder(), new LongAdder(), new LongAdder()};
+        private final Histogram[] intervals = {new Histogram(), new Histogram(), new Histogram()};
+        // Time of the last event of every type, or 0 if there was none yet
+        private final AtomicLong[] lastEventNanos = {new AtomicLong(), new AtomicLong(), new AtomicLong()};
+
+        private void record(int eventType, long now) {
+            int index = ObjectClassChurn.indexOf(eventType);
+            counts[index].increment();
+            long lastEvent = lastEventNanos[index].getAndSet(now);
+            if (lastEvent != 0) {
+                intervals[index].record(now - lastEvent);
+            }
+        }
+
+        private ObjectClassChurn snapshot() {
+            long[] countsSnapshot = new long[counts.length];
+            HistogramSnapshot[] intervalsSnapshot = new HistogramSnapshot[intervals.length];
+            for (int i = 0; i < counts.length; i++) {
+                countsSnapshot[i] = counts[i].sum();
+                intervalsSnapshot[i] = intervals[i].snapshot();
+            }
+            return new ObjectClassChurn(countsSnapshot, intervalsSnapshot);
+        }
+    }
+}
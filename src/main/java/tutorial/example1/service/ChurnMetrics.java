@@ -0,0 +1,15 @@
+package tutorial.example1.service;
+
+/**
+ * A simple service interface that defines a service registry churn
+ * metrics service. It lets other bundles see how many services come
+ * and go, how often, and how long the new services wait to be used.
+ */
+public interface ChurnMetrics {
+
+    /**
+     * Takes a snapshot of the service registry churn observed so far
+     * @return the snapshot of the service registry churn
+     */
+    public ChurnSnapshot snapshot();
+}
@@ -0,0 +1,72 @@
+package tutorial.example1.service;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable snapshot of the service registry churn observed since
+ * the service listener bundle has started: the service events by
+ * object class and how soon the registered services were first used
+ */
+public final class ChurnSnapshot {
+
+    private final long timeMillis;
+    private final Map<String, ObjectClassChurn> objectClasses;
+    private final HistogramSnapshot firstUseLatency;
+    private final long unusedCount;
+
+    /**
+     * Creates a snapshot of the service registry churn
+     * @param timeMillis the time the snapshot was taken at, in milliseconds since the epoch
+     * @param objectClasses the summaries of the service events, by object class
+     * @param firstUseLatency the distribution of the times from the registration
+     *                        of a service to its first use
+     * @param unusedCount the number of services unregistered or timed out without being used
+     */
+    public ChurnSnapshot(long timeMillis, Map<String, ObjectClassChurn> objectClasses,
+                         HistogramSnapshot firstUseLatency, long unusedCount) {
+        this.timeMillis = timeMillis;
+        this.objectClasses = Collections.unmodifiableMap(new TreeMap<>(objectClasses));
+        this.firstUseLatency = firstUseLatency;
+        this.unusedCount = unusedCount;
+    }
+
+    /**
+     * Returns the time the snapshot was taken at
+     * @return the time the snapshot was taken at, in milliseconds since the epoch
+     */
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    /**
+     * Returns the summaries of the service events, by object class. A service
+     * registered under many object classes is counted under each of them
+     * @return the summaries of the service events, sorted by object class
+     */
+    public Map<String, ObjectClassChurn> getObjectClasses() {
+        return objectClasses;
+    }
+
+    /**
+     * Returns the distribution of the times from the registration of a
+     * service to the moment it was first got by any bundle. The first use
+     * is sampled periodically, so the times are rounded up to the sampling
+     * period of the recorder
+     * @return the distribution of the times to the first use
+     */
+    public HistogramSnapshot getFirstUseLatency() {
+        return firstUseLatency;
+    }
+
+    /**
+     * Returns the number of services unregistered without ever being used, or
+     * not used within the first use timeout of the recorder, after which they
+     * aren't checked anymore
+     * @return the number of services unregistered or timed out without being used
+     */
+    public long getUnusedCount() {
+        return unusedCount;
+    }
+}
@@ -0,0 +1,65 @@
+package tutorial.example1.service;
+
+import org.osgi.framework.ServiceEvent;
+
+/**
+ * Immutable summary of the service events of the services registered
+ * under a single object class. For each of the {@link ServiceEvent#REGISTERED},
+ * {@link ServiceEvent#MODIFIED} and {@link ServiceEvent#UNREGISTERING} event
+ * types, it holds the number of the events and the distribution of the
+ * intervals between two consecutive events; short intervals reveal a
+ * registry storm
+ */
+public final class ObjectClassChurn {
+
+    private final long[] counts;
+    private final HistogramSnapshot[] intervals;
+
+    /**
+     * Creates a summary of the service events of an object class
+     * @param counts the numbers of the registered, modified and unregistering events
+     * @param intervals the intervals between the registered, modified
+     *                  and unregistering events, respectively
+     */
+    public ObjectClassChurn(long[] counts, HistogramSnapshot[] intervals) {
+        this.counts = counts.clone();
+        this.intervals = intervals.clone();
+    }
+
+    /**
+     * Returns the number of events of the given type
+     * @param eventType the type of the events, as defined by {@link ServiceEvent}
+     * @return the number of events of the given type
+     */
+    public long getCount(int eventType) {
+        return counts[indexOf(eventType)];
+    }
+
+    /**
+     * Returns the distribution of the intervals between
+     * two consecutive events of the given type
+     * @param eventType the type of the events, as defined by {@link ServiceEvent}
+     * @return the distribution of the intervals between the events
+     */
+    public HistogramSnapshot getIntervals(int eventType) {
+        return intervals[indexOf(eventType)];
+    }
+
+    /**
+     * Returns the index of the given event type in the summary
+     * @param eventType the type of the events, as defined by {@link ServiceEvent}
+     * @return 0, 1 or 2 for the registered, modified and unregistering events, respectively
+     */
+    public static int indexOf(int eventType) {
+        switch (eventType) {
+            case ServiceEvent.REGISTERED:
+                return 0;
+            case ServiceEvent.MODIFIED:
+                return 1;
+            case ServiceEvent.UNREGISTERING:
+                return 2;
+            default:
+                throw new IllegalArgumentException("Unsupported event type: " + eventType);
+        }
+    }
+}
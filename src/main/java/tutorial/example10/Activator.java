@@ -0,0 +1,59 @@
+package tutorial.example10;
+
+import org.osgi.framework.BundleActivator;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.framework.hooks.service.EventListenerHook;
+import org.osgi.framework.hooks.service.FindHook;
+
+import java.util.Dictionary;
+import java.util.Hashtable;
+
+/**
+ * This class implements a bundle that instruments the dictionary and spell
+ * checker services. Every such service is replaced by a proxy with a higher
+ * service ranking, which records the call counts, the hit ratio of the
+ * dictionary look-ups, the tokens per spell checked passage and the latency
+ * of the calls. The instrumentation is opt-in: it is only in place while
+ * this bundle is active, which should be started before the bundles whose
+ * services it instruments. The metrics can be read through JMX or with the
+ * {@code instrumentation} command of the Gogo shell.
+ */
+public class Activator implements BundleActivator {
+
+    private Instrumenter instrumenter = null;
+    private ServiceRegistration<?> hookRegistration = null;
+
+    /**
+     * Registers the hooks hiding the original services from other bundles,
+     * instruments the services and registers the shell command
+     * @param context the framework context for the bundle
+     */
+    @Override
+    public void start(BundleContext context) throws Exception {
+        instrumenter = new Instrumenter(context);
+        hookRegistration = context.registerService(
+                new String[]{FindHook.class.getName(), EventListenerHook.class.getName()}, instrumenter, null);
+        instrumenter.open();
+
+        Dictionary<String, Object> properties = new Hashtable<>();
+        properties.put("osgi.command.scope", InstrumentationCommand.SCOPE);
+        properties.put("osgi.command.function", new String[]{InstrumentationCommand.FUNCTION});
+        context.registerService(InstrumentationCommand.class.getName(),
+                                new InstrumentationCommand(instrumenter), properties);
+    }
+
+    /**
+     * Makes the original services visible again and unregisters the proxies
+     * @param context the framework context for the bundle
+     */
+    @Override
+    public void stop(BundleContext context) {
+        hookRegistration.unregister();
+        hookRegistration = null;
+        instrumenter.close();
+        instrumenter = null;
+        /* The shell command will be unregistered
+           automatically by the framework */
+    }
+}
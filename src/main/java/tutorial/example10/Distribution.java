@@ -0,0 +1,95 @@
+package tutorial.example10;
+
+/**
+ * Immutable summary of the distribution of recorded values, such as
+ * latencies in nanoseconds or numbers of tokens. The percentiles are
+ * approximated by the upper bounds of the histogram buckets the values
+ * fall into, which are at most an eighth wider than the values themselves.
+ * Its getters make it an open type, so it can be read through JMX
+ */
+public final class Distribution {
+
+    /**
+     * Summary of a histogram without any recorded values
+     */
+    public static final Distribution EMPTY = new Distribution(0, 0, 0, 0, 0, 0);
+
+    private final long count;
+    private final long mean;
+    private final long median;
+    private final long percentile90;
+    private final long percentile99;
+    private final long max;
+
+    /**
+     * Creates a summary of a histogram
+     * @param count the number of recorded values
+     * @param mean the mean of the recorded values
+     * @param median the median of the recorded values
+     * @param percentile90 the 90th percentile of the recorded values
+     * @param percentile99 the 99th percentile of the recorded values
+     * @param max the maximal recorded value
+     */
+    public Distribution(long count, long mean, long median, long percentile90, long percentile99, long max) {
+        this.count = count;
+        this.mean = mean;
+        this.median = median;
+        this.percentile90 = percentile90;
+        this.percentile99 = percentile99;
+        this.max = max;
+    }
+
+    /**
+     * Returns the number of recorded values
+     * @return the number of recorded values
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the mean of the recorded values
+     * @return the mean of the recorded values
+     */
+    public long getMean() {
+        return mean;
+    }
+
+    /**
+     * Returns the median of the recorded values
+     * @return the median of the recorded values
+     */
+    public long getMedian() {
+        return median;
+    }
+
+    /**
+     * Returns the 90th percentile of the recorded values
+     * @return the 90th percentile of the recorded values
+     */
+    public long getPercentile90() {
+        return percentile90;
+    }
+
+    /**
+     * Returns the 99th percentile of the recorded values
+     * @return the 99th percentile of the recorded values
+     */
+    public long getPercentile99() {
+        return percentile99;
+    }
+
+    /**
+     * Returns the maximal recorded value
+     * @return the maximal recorded value
+     */
+    public long getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + count + ", mean=" + mean + ", median=" + median + ", p90=" + percentile90
+               + ", p99=" + percentile99 + ", max=" + max;
+    }
+}
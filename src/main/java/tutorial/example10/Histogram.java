@@ -0,0 +1,91 @@
+package tutorial.example10;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of non-negative values, such as durations or numbers of
+ * tokens, in the style of HdrHistogram: the values are
+ * counted in buckets of exponentially growing width, every power of two
+ * being split into eight linear sub-buckets, so that the whole range of
+ * a long is covered by a few hundred counters with a relative error of at
+ * most an eighth. Recording a value is lock-free and never allocates
+ */
+final class Histogram {
+
+    // Number of bits of a value, below its highest one bit, that select its sub-bucket
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records a value
+     * @param recorded the value; negative ones are recorded as zero
+     */
+    void record(long recorded) {
+        long value = Math.max(0, recorded);
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Summarizes the recorded values. Values recorded meanwhile
+     * may be only partially reflected in the summary
+     * @return the summary of the recorded values
+     */
+    Distribution snapshot() {
+        long[] bucketCounts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            bucketCounts[i] = counts.get(i);
+            total += bucketCounts[i];
+        }
+        if (total == 0) {
+            return Distribution.EMPTY;
+        }
+        long maxValue = max.get();
+        return new Distribution(total, sum.sum() / Math.max(1, count.sum()),
+                                     percentile(bucketCounts, total, 0.5, maxValue),
+                                     percentile(bucketCounts, total, 0.9, maxValue),
+                                     percentile(bucketCounts, total, 0.99, maxValue), maxValue);
+    }
+
+    private static long percentile(long[] bucketCounts, long total, double percentile, long maxValue) {
+        long rank = (long) Math.ceil(percentile * total);
+        long seen = 0;
+        for (int i = 0; i < bucketCounts.length; i++) {
+            seen += bucketCounts[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), maxValue);
+            }
+        }
+        return maxValue;
+    }
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int magnitude = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKET_COUNT) {
+            return bucket;
+        }
+        int magnitude = bucket / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        int subBucket = bucket % SUB_BUCKET_COUNT;
+        long lowerBound = (long) (SUB_BUCKET_COUNT + subBucket) << (magnitude - SUB_BUCKET_BITS);
+        return lowerBound + (1L << (magnitude - SUB_BUCKET_BITS)) - 1;
+    }
+}
@@ -0,0 +1,75 @@
+package tutorial.example10;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gogo shell command printing the metrics of the instrumented services.
+ * It is registered with the {@value #SCOPE} scope, so that it can be
+ * called as {@code tutorial:instrumentation}, or just {@code instrumentation},
+ * from the shell of the Felix instance
+ */
+public class InstrumentationCommand {
+
+    static final String SCOPE = "tutorial";
+    static final String FUNCTION = "instrumentation";
+
+    private final Instrumenter instrumenter;
+
+    InstrumentationCommand(Instrumenter instrumenter) {
+        this.instrumenter = instrumenter;
+    }
+
+    /**
+     * Describes the metrics of every instrumented service
+     * @return the description of the metrics, printed by the shell
+     */
+    public String instrumentation() {
+        StringBuilder description = new StringBuilder();
+        for (InstrumentedService service : instrumenter.services()) {
+            describe(service, description);
+        }
+        if (description.length() == 0) {
+            return "No services are instrumented.";
+        }
+        return description.toString();
+    }
+
+    private static void describe(InstrumentedService service, StringBuilder description) {
+        description.append("Service ").append(service.getServiceId()).append(' ')
+                   .append(Arrays.toString(service.getObjectClass()));
+        Object language = service.getProperty("Language");
+        if (language != null) {
+            description.append(" (").append(language).append(')');
+        }
+        description.append(System.lineSeparator());
+
+        Map<String, Long> callCounts = service.getCallCounts();
+        service.getLatencies().forEach((method, latency) -> description
+                .append(String.format("  %-44s %10d calls, latency [us] median %.1f, p90 %.1f, p99 %.1f, max %.1f%n",
+                                      method, callCounts.get(method), micros(latency.getMedian()),
+                                      micros(latency.getPercentile90()), micros(latency.getPercentile99()),
+                                      micros(latency.getMax()))));
+        if (service.getFailureCount() > 0) {
+            description.append(String.format("  %d failed calls%n", service.getFailureCount()));
+        }
+        if (service.getCheckedWordCount() > 0) {
+            description.append(String.format("  %d words looked up, %d found, hit ratio %.1f%%%n",
+                                             service.getCheckedWordCount(), service.getFoundWordCount(),
+                                             100 * service.getHitRatio()));
+        }
+        Distribution tokensPerPassage = service.getTokensPerPassage();
+        if (tokensPerPassage.getCount() > 0) {
+            description.append(String.format("  %d passages, tokens per passage mean %d, median %d, p99 %d, max %d,"
+                                             + " %d misspelled words%n",
+                                             tokensPerPassage.getCount(), tokensPerPassage.getMean(),
+                                             tokensPerPassage.getMedian(), tokensPerPassage.getPercentile99(),
+                                             tokensPerPassage.getMax(), service.getMisspelledWordCount()));
+        }
+    }
+
+    private static double micros(long nanos) {
+        return nanos / (double) TimeUnit.MICROSECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,433 @@
+package tutorial.example10;
+
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.framework.ServiceReference;
+import org.osgi.framework.ServiceRegistration;
+import tutorial.example2.service.DictionaryService;
+import tutorial.example6.service.LanguageSpellChecker;
+import tutorial.example6.service.SpellChecker;
+import tutorial.example6.spelling.Tokenizer;
+import tutorial.example6.spelling.WordSegmenter;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Instrumented copy of a registered service: a proxy implementing the same
+ * interfaces as the original service, registered with the same properties,
+ * but with a higher {@link Constants#SERVICE_RANKING}. Every call of the
+ * proxy is passed to the original service and timed; the results of the
+ * dictionary look-ups are counted as hits and misses and the tokens of
+ * the spell checked passages are counted too, split into words the same
+ * way the spell checker splits them. The methods whose results are counted
+ * are resolved once from the service interfaces; the calls of any other
+ * methods, such as ones added to the interfaces later, are only counted
+ * and timed.
+ * <p>
+ * The metrics are kept in striped counters and lock-free histograms, so
+ * that the calls from many threads don't contend on the instrumentation.
+ * They are published as an MXBean on the platform MBean server
+ */
+final class InstrumentedService implements InvocationHandler, InstrumentedServiceMXBean {
+
+    private static final Logger LOGGER = Logger.getLogger(InstrumentedService.class.getName());
+
+    /**
+     * Property of the proxies, set to the ID of the original service,
+     * by which they are told apart from the services to be instrumented
+     */
+    static final String INSTRUMENTED_PROPERTY = "Instrumented";
+
+    // Properties owned by the framework, which cannot be copied to the proxy
+    private static final Set<String> FRAMEWORK_PROPERTIES = Set.of(
+            Constants.OBJECTCLASS, Constants.SERVICE_ID, Constants.SERVICE_BUNDLEID,
+            Constants.SERVICE_SCOPE, Constants.SERVICE_PID);
+
+    private final BundleContext context;
+    private final ServiceReference<?> original;
+    private final Object target;
+    private final long serviceId;
+    private final String[] objectClass;
+    private final ServiceRegistration<?> registration;
+    private final ObjectName objectName;
+
+    // Call metrics of every method, so that overloaded methods are told apart
+    private final Map<Method, MethodMetrics> methods = new ConcurrentHashMap<>();
+    private final LongAdder checkedWords = new LongAdder();
+    private final LongAdder foundWords = new LongAdder();
+    private final Histogram tokensPerPassage = new Histogram();
+    private final LongAdder misspelledWords = new LongAdder();
+    // Splits the passages of a spell checker into words for its last seen languages
+    private volatile LanguagesSegmenter passageSegmenter = null;
+
+    private InstrumentedService(BundleContext context, ServiceReference<?> original, Object target) {
+        this.context = context;
+        this.original = original;
+        this.target = target;
+        this.serviceId = (Long) original.getProperty(Constants.SERVICE_ID);
+
+        Class<?>[] interfaces = publicInterfacesOf(target.getClass());
+        Set<String> interfaceNames = new LinkedHashSet<>();
+        for (Class<?> implemented : interfaces) {
+            interfaceNames.add(implemented.getName());
+        }
+        // A proxy can only stand in for the interfaces, not for the classes of the original
+        this.objectClass = Arrays.stream((String[]) original.getProperty(Constants.OBJECTCLASS))
+                                 .filter(interfaceNames::contains)
+                                 .toArray(String[]::new);
+        Object proxy = Proxy.newProxyInstance(target.getClass().getClassLoader(), interfaces, this);
+        this.registration = context.registerService(objectClass, proxy, proxyProperties());
+        this.objectName = registerMBean();
+    }
+
+    /**
+     * Registers an instrumented copy of the given service
+     * @param context the bundle context through which the proxy is registered
+     * @param original the reference of the service to be instrumented
+     * @return the instrumented service, or null if the original service
+     *         is no longer available
+     */
+    static InstrumentedService register(BundleContext context, ServiceReference<?> original) {
+        Object target = context.getService(original);
+        if (target == null) {
+            return null;
+        }
+        return new InstrumentedService(context, original, target);
+    }
+
+    /**
+     * Copies the changed properties of the original service to the proxy
+     */
+    void modified() {
+        registration.setProperties(proxyProperties());
+    }
+
+    /**
+     * Unregisters the proxy and its MXBean and releases the original service
+     */
+    void unregister() {
+        try {
+            registration.unregister();
+        } catch (IllegalStateException exception) {
+            // The proxy has already been unregistered along with the bundle
+        }
+        if (objectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            } catch (JMException exception) {
+                LOGGER.log(Level.WARNING, exception.getMessage(), exception);
+            }
+        }
+        context.ungetService(original);
+    }
+
+    /**
+     * Passes the call to the original service and records its metrics
+     */
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            return invokeObjectMethod(proxy, method, args);
+        }
+        MethodMetrics metrics = methods.get(method);
+        if (metrics == null) {
+            metrics = methods.computeIfAbsent(method, MethodMetrics::new);
+        }
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = method.invoke(target, args);
+        } catch (InvocationTargetException exception) {
+            metrics.latency.record(System.nanoTime() - start);
+            metrics.failures.increment();
+            throw exception.getCause();
+        }
+        metrics.latency.record(System.nanoTime() - start);
+        recordResult(metrics.result, args, result);
+        return result;
+    }
+
+    @Override
+    public long getServiceId() {
+        return serviceId;
+    }
+
+    @Override
+    public String[] getObjectClass() {
+        return objectClass.clone();
+    }
+
+    @Override
+    public Map<String, Long> getCallCounts() {
+        Map<String, Long> callCounts = new TreeMap<>();
+        methods.values().forEach(metrics -> callCounts.put(metrics.signature, metrics.latency.snapshot().getCount()));
+        return callCounts;
+    }
+
+    @Override
+    public long getFailureCount() {
+        long failureCount = 0;
+        for (MethodMetrics metrics : methods.values()) {
+            failureCount += metrics.failures.sum();
+        }
+        return failureCount;
+    }
+
+    @Override
+    public Map<String, Distribution> getLatencies() {
+        Map<String, Distribution> latencies = new TreeMap<>();
+        methods.values().forEach(metrics -> latencies.put(metrics.signature, metrics.latency.snapshot()));
+        return latencies;
+    }
+
+    @Override
+    public long getCheckedWordCount() {
+        return checkedWords.sum();
+    }
+
+    @Override
+    public long getFoundWordCount() {
+        return foundWords.sum();
+    }
+
+    @Override
+    public double getHitRatio() {
+        long checkedWordCount = checkedWords.sum();
+        return checkedWordCount == 0 ? Double.NaN : (double) foundWords.sum() / checkedWordCount;
+    }
+
+    @Override
+    public Distribution getTokensPerPassage() {
+        return tokensPerPassage.snapshot();
+    }
+
+    @Override
+    public long getMisspelledWordCount() {
+        return misspelledWords.sum();
+    }
+
+    /**
+     * Returns a property of the original service
+     * @param key the name of the property
+     * @return the value of the property, or null if the original service doesn't have it
+     */
+    Object getProperty(String key) {
+        return original.getProperty(key);
+    }
+
+    /**
+     * Counts the hits and misses of the dictionary look-ups
+     * and the tokens of the spell checked passages
+     */
+    private void recordResult(Result kind, Object[] args, Object result) {
+        switch (kind) {
+            case WORD:
+                checkedWords.increment();
+                if (Boolean.TRUE.equals(result)) {
+                    foundWords.increment();
+                }
+                break;
+            case WORD_LIST:
+                checkedWords.add(((List<?>) args[0]).size());
+                foundWords.add(((BitSet) result).cardinality());
+                break;
+            case WORD_RANGES:
+                checkedWords.add((Integer) args[3]);
+                foundWords.add(((BitSet) result).cardinality());
+                break;
+            case PASSAGE:
+                recordPassage((String) args[0], checkerSegmenter(), result);
+                break;
+            case LANGUAGE_PASSAGE:
+                recordPassage((String) args[0], WordSegmenter.forLanguage((String) args[1]), result);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void recordPassage(String passage, WordSegmenter segmenter, Object result) {
+        if (passage != null) {
+            Tokenizer tokenizer = new Tokenizer(segmenter);
+            tokenizer.reset(passage, 0, passage.length());
+            int tokenCount = 0;
+            while (tokenizer.next()) {
+                tokenCount++;
+            }
+            tokensPerPassage.record(tokenCount);
+        }
+        if (result instanceof String[]) {
+            misspelledWords.add(((String[]) result).length);
+        }
+    }
+
+    /**
+     * Returns the segmenter the spell checker splits the passages with, which
+     * depends on the languages of its dictionaries, if it tells them; it is
+     * only created again when the languages change
+     */
+    private WordSegmenter checkerSegmenter() {
+        if (!(target instanceof LanguageSpellChecker)) {
+            return WordSegmenter.DEFAULT;
+        }
+        Set<String> languages = ((LanguageSpellChecker) target).languages();
+        LanguagesSegmenter segmenter = passageSegmenter;
+        if (segmenter == null || !segmenter.languages.equals(languages)) {
+            passageSegmenter = segmenter = new LanguagesSegmenter(languages);
+        }
+        return segmenter.segmenter;
+    }
+
+    private Object invokeObjectMethod(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                return "Instrumented " + target;
+        }
+    }
+
+    private Dictionary<String, Object> proxyProperties() {
+        Dictionary<String, Object> properties = new Hashtable<>();
+        for (String key : original.getPropertyKeys()) {
+            if (!FRAMEWORK_PROPERTIES.contains(key)) {
+                properties.put(key, original.getProperty(key));
+            }
+        }
+        Object ranking = original.getProperty(Constants.SERVICE_RANKING);
+        int originalRanking = ranking instanceof Integer ? (Integer) ranking : 0;
+        properties.put(Constants.SERVICE_RANKING, originalRanking == Integer.MAX_VALUE ? originalRanking
+                                                                                          : originalRanking + 1);
+        properties.put(INSTRUMENTED_PROPERTY, serviceId);
+        return properties;
+    }
+
+    private ObjectName registerMBean() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName("tutorial.example10:type=InstrumentedService,id=" + serviceId);
+            server.registerMBean(this, name);
+            return name;
+        } catch (JMException exception) {
+            LOGGER.log(Level.WARNING, exception.getMessage(), exception);
+            return null;
+        }
+    }
+
+    /**
+     * Collects the public interfaces implemented by the given class and its superclasses
+     */
+    private static Class<?>[] publicInterfacesOf(Class<?> implementation) {
+        Set<Class<?>> interfaces = new LinkedHashSet<>();
+        for (Class<?> type = implementation; type != null; type = type.getSuperclass()) {
+            collectInterfaces(type, interfaces);
+        }
+        List<Class<?>> publicInterfaces = new ArrayList<>();
+        for (Class<?> implemented : interfaces) {
+            if (Modifier.isPublic(implemented.getModifiers())) {
+                publicInterfaces.add(implemented);
+            }
+        }
+        return publicInterfaces.toArray(new Class<?>[0]);
+    }
+
+    private static void collectInterfaces(Class<?> type, Set<Class<?>> interfaces) {
+        for (Class<?> implemented : type.getInterfaces()) {
+            if (interfaces.add(implemented)) {
+                collectInterfaces(implemented, interfaces);
+            }
+        }
+    }
+
+    /**
+     * Kinds of the results of the methods of the service interfaces that are counted
+     */
+    private enum Result {
+
+        WORD, WORD_LIST, WORD_RANGES, PASSAGE, LANGUAGE_PASSAGE, OTHER;
+
+        private static final Map<Method, Result> METHODS = Map.of(
+                methodOf(DictionaryService.class, "checkWord", String.class), WORD,
+                methodOf(DictionaryService.class, "checkWord", CharSequence.class, int.class, int.class), WORD,
+                methodOf(DictionaryService.class, "checkWords", List.class), WORD_LIST,
+                methodOf(DictionaryService.class, "checkWords",
+                         CharSequence.class, int[].class, int[].class, int.class), WORD_RANGES,
+                methodOf(SpellChecker.class, "checkPassage", String.class), PASSAGE,
+                methodOf(SpellChecker.class, "checkPassage", String.class, ForkJoinPool.class), PASSAGE,
+                methodOf(LanguageSpellChecker.class, "checkPassage", String.class, String.class), LANGUAGE_PASSAGE);
+
+        private static Result of(Method method) {
+            return METHODS.getOrDefault(method, OTHER);
+        }
+
+        private static Method methodOf(Class<?> type, String name, Class<?>... parameterTypes) {
+            try {
+                return type.getMethod(name, parameterTypes);
+            } catch (NoSuchMethodException exception) {
+                throw new IllegalStateException(exception);
+            }
+        }
+    }
+
+    /**
+     * Segmenter for the given languages, created once for them
+     */
+    private static final class LanguagesSegmenter {
+
+        private final Set<String> languages;
+        private final WordSegmenter segmenter;
+
+        private LanguagesSegmenter(Set<String> languages) {
+            // A copy, so that the dictionaries the languages come from aren't kept reachable
+            this.languages = Set.copyOf(languages);
+            this.segmenter = WordSegmenter.forLanguages(languages);
+        }
+    }
+
+    /**
+     * Metrics of the calls of a single method
+     */
+    private static final class MethodMetrics {
+
+        // Name and simple names of the parameter types, such as checkWord(String)
+        private final String signature;
+        // Kind of the results of the method that are counted
+        private final Result result;
+        // The number of calls is the number of recorded latencies
+        private final Histogram latency = new Histogram();
+        private final LongAdder failures = new LongAdder();
+
+        private MethodMetrics(Method method) {
+            this.signature = Arrays.stream(method.getParameterTypes())
+                                   .map(Class::getSimpleName)
+                                   .collect(Collectors.joining(", ", method.getName() + "(", ")"));
+            this.result = Result.of(method);
+        }
+    }
+}
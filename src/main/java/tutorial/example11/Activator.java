@@ -0,0 +1,90 @@
+package tutorial.example11;
+
+import org.osgi.framework.BundleActivator;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleException;
+import org.osgi.util.tracker.ServiceTracker;
+import tutorial.example2.service.DictionaryService;
+import tutorial.example6.service.SpellChecker;
+
+/**
+ * This class implements a bundle that serves the spell checker and
+ * dictionary services over TCP connections of the local host, so that
+ * processes outside of the framework share the dictionaries loaded and
+ * warmed up in it. The services are tracked with Service Trackers, and
+ * every request is handled by the best ranked service available at the
+ * time. The port and the number of the selector loops can be set with
+ * the {@value #PORT_PROPERTY} and {@value #LOOPS_PROPERTY} framework
+ * properties; by default, the server listens on port {@value #DEFAULT_PORT}
+ * and runs a loop for every available processor.
+ */
+public class Activator implements BundleActivator {
+
+    static final String PORT_PROPERTY = "tutorial.example11.port";
+    static final String LOOPS_PROPERTY = "tutorial.example11.loops";
+    static final int DEFAULT_PORT = 7007;
+
+    private ServiceTracker<SpellChecker, SpellChecker> spellCheckerTracker = null;
+    private ServiceTracker<DictionaryService, DictionaryService> dictionaryTracker = null;
+    private SpellCheckServer server = null;
+
+    /**
+     * Starts the server and starts tracking the services
+     * @param context the framework context for the bundle
+     */
+    @Override
+    public void start(BundleContext context) throws Exception {
+        spellCheckerTracker = new ServiceTracker<>(context, SpellChecker.class, null);
+        dictionaryTracker = new ServiceTracker<>(context, DictionaryService.class, null);
+        int port = intProperty(context, PORT_PROPERTY, DEFAULT_PORT, 0, 65535);
+        int loops = intProperty(context, LOOPS_PROPERTY, Runtime.getRuntime().availableProcessors(),
+                                1, Integer.MAX_VALUE);
+        server = new SpellCheckServer(port, loops, spellCheckerTracker::getService, dictionaryTracker::getService);
+        // Requests arriving before the trackers are open are answered as if no services were available
+        spellCheckerTracker.open();
+        dictionaryTracker.open();
+        System.out.println("Spell checker listening on port " + server.port());
+    }
+
+    /**
+     * Reads an integer framework property
+     * @param context the framework context for the bundle
+     * @param name the name of the property
+     * @param defaultValue the value used when the property is not set
+     * @param min the lowest allowed value
+     * @param max the highest allowed value
+     * @return the value of the property, or the default value when it is not set
+     * @throws BundleException if the property is not an integer from {@code min} to {@code max}
+     */
+    private static int intProperty(BundleContext context, String name, int defaultValue, int min, int max)
+            throws BundleException {
+        String value = context.getProperty(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            if (parsed >= min && parsed <= max) {
+                return parsed;
+            }
+        } catch (NumberFormatException exception) {
+            // Reported below together with the values out of range
+        }
+        throw new BundleException("Invalid value '" + value + "' of " + name + ", expected an integer "
+                                  + (max == Integer.MAX_VALUE ? "of at least " + min : "from " + min + " to " + max));
+    }
+
+    /**
+     * Stops the server, closing the open connections, and stops tracking the services
+     * @param context the framework context for the bundle
+     */
+    @Override
+    public void stop(BundleContext context) throws Exception {
+        server.stop();
+        server = null;
+        spellCheckerTracker.close();
+        spellCheckerTracker = null;
+        dictionaryTracker.close();
+        dictionaryTracker = null;
+    }
+}
@@ -0,0 +1,42 @@
+package tutorial.example11;
+
+/**
+ * Binary protocol of the spell checking server. Every request and every
+ * response is a frame: the length of the rest of the frame as a 4-byte
+ * big-endian integer, a 1-byte code and a payload:
+ * <ul>
+ *     <li>a request consists of an operation code and the UTF-8 encoded
+ *         word or passage to check;</li>
+ *     <li>a response consists of a status code and, if the status is
+ *         {@link #OK}, the result: a single byte, 1 or 0, telling whether
+ *         a word is correct, or the number of the misspelled words of a
+ *         passage as a 4-byte integer, followed by every misspelled word
+ *         as its length in bytes and its UTF-8 encoded characters.</li>
+ * </ul>
+ * Requests are pipelined: a client may send any number of requests without
+ * waiting for the responses, which are sent back in the order of the requests
+ */
+final class Protocol {
+
+    // Length of the frame length field
+    static final int LENGTH_BYTES = 4;
+    // Largest frame accepted, without the length field
+    static final int MAX_FRAME_BYTES = 1 << 20;
+
+    // Operation codes of the requests
+    static final byte CHECK_WORD = 1;
+    static final byte CHECK_PASSAGE = 2;
+
+    // Status codes of the responses
+    static final byte OK = 0;
+    // No service is available to handle the request
+    static final byte UNAVAILABLE = 1;
+    // The operation is unknown or the payload isn't valid UTF-8
+    static final byte BAD_REQUEST = 2;
+    // The service has failed to handle the request
+    static final byte FAILED = 3;
+
+    private Protocol() {
+        // Constants only
+    }
+}
@@ -2,7 +2,10 @@ package tutorial.example2;
 
 import org.osgi.framework.BundleActivator;
 import org.osgi.framework.BundleContext;
+import tutorial.example2.dictionary.FoldedDictionary;
 import tutorial.example2.service.DictionaryService;
+import tutorial.example2.service.PrefixDictionaryService;
+import tutorial.example2.service.WordFilter;
 
 import java.util.Dictionary;
 import java.util.Hashtable;
@@ -12,10 +15,18 @@ import java.util.Hashtable;
  * context to register an English language dictionary service
  * with the OSGi framework. The dictionary service interface is
  * defined in a separate class file and is implemented by an
- * inner class.
+ * inner class. The implementation can be selected with the
+ * {@value #IMPLEMENTATION_PROPERTY} framework property: either
+ * {@value #HASHED} (the default) or {@value #AUTOMATON}, which
+ * additionally offers the prefix dictionary service. The summary
+ * of the words of the dictionary is published along with the service.
  */
 public class Activator implements BundleActivator {
 
+    static final String IMPLEMENTATION_PROPERTY = "tutorial.example2.implementation";
+    static final String HASHED = "hashed";
+    static final String AUTOMATON = "automaton";
+
     /**
      * Registers an instance of a dictionary service using the
      * bundle context; attaches properties to the service that
@@ -23,11 +34,21 @@ public class Activator implements BundleActivator {
      */
     @Override
     public void start(BundleContext context) throws Exception {
-        Dictionary<String, String> properties = new Hashtable<>() {{
+        String implementation = AUTOMATON.equals(context.getProperty(IMPLEMENTATION_PROPERTY)) ? AUTOMATON : HASHED;
+        FoldedDictionary dictionary = AUTOMATON.equals(implementation) ? new PrefixDictionaryServiceImpl()
+                                                                        : new DictionaryServiceImpl();
+        Dictionary<String, Object> properties = new Hashtable<>() {{
             put("Language", "English");
+            put("Implementation", implementation);
+            put(WordFilter.PROPERTY, dictionary.filter());
         }};
-        String serviceName = DictionaryService.class.getName();
-        context.registerService(serviceName, new DictionaryServiceImpl(), properties);
+        if (AUTOMATON.equals(implementation)) {
+            String[] serviceNames = {DictionaryService.class.getName(), PrefixDictionaryService.class.getName()};
+            context.registerService(serviceNames, dictionary, properties);
+        } else {
+            String serviceName = DictionaryService.class.getName();
+            context.registerService(serviceName, dictionary, properties);
+        }
     }
 
     /**
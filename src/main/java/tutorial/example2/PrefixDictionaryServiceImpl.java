@@ -0,0 +1,15 @@
+package tutorial.example2;
+
+import tutorial.example2.dictionary.AutomatonDictionary;
+
+/**
+ * English dictionary backed by a minimal finite-state automaton. It holds
+ * the same words as {@link DictionaryServiceImpl} and is registered
+ * instead of it when selected, so that the two can be compared
+ */
+class PrefixDictionaryServiceImpl extends AutomatonDictionary {
+
+    PrefixDictionaryServiceImpl() {
+        super(DictionaryServiceImpl.KNOWN_WORDS);
+    }
+}
@@ -0,0 +1,273 @@
+package tutorial.example2.client;
+
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceEvent;
+import org.osgi.framework.ServiceListener;
+import org.osgi.framework.ServiceReference;
+
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Binding of a client to a service, which keeps the service object for as
+ * long as the service is bound. Getting a service through the bundle context
+ * on every use pays for the framework's registry look-up and use-count
+ * bookkeeping each time; with a binding, a use costs a plain read. The bound
+ * service reference and the service object are kept together as an immutable
+ * pair in an atomic reference, so that the service events swap the binding
+ * and the client reads it without any locking, always seeing a consistent
+ * pair. The service object is only got when the client first needs it, and
+ * released as soon as the service is being unregistered.
+ * <p>
+ * A binding is either fixed to a single service, which it never replaces,
+ * or dynamic, bound to the best ranked service matching a filter. In the
+ * latter case, a newly registered or modified service replaces the bound
+ * one if it ranks higher, according to its {@link Constants#SERVICE_RANKING}
+ * and then its ID. When the bound service goes away, the binding is emptied
+ * right away and the remaining services are queried on a separate thread,
+ * so that the delivery of the service events isn't held up by the query.
+ * A binding can be used by any number of threads
+ * @param <S> the type of the service
+ */
+public final class ServiceBinding<S> implements ServiceListener {
+
+    private static final Logger LOGGER = Logger.getLogger(ServiceBinding.class.getName());
+
+    private final BundleContext context;
+    private final Class<S> serviceClass;
+    private final String filter;
+    // The only service bound by a fixed binding, or null if the binding is dynamic
+    private final ServiceReference<S> fixedReference;
+    private final AtomicReference<Binding<S>> binding = new AtomicReference<>(Binding.empty());
+    // Queries the services after the bound one has gone away, or null if the binding is fixed
+    private final ExecutorService rebinder;
+
+    private ServiceBinding(BundleContext context, Class<S> serviceClass, String filter,
+                           ServiceReference<S> fixedReference, ExecutorService rebinder) {
+        this.context = context;
+        this.serviceClass = serviceClass;
+        this.filter = filter;
+        this.fixedReference = fixedReference;
+        this.rebinder = rebinder;
+    }
+
+    /**
+     * Creates an empty dynamic binding to the best ranked service of the given type
+     * @param context the framework context for the bundle
+     * @param serviceClass the type of the service
+     * @param filter the filter the service properties must match, or null to match any service of the type
+     * @param threadName the name of the thread querying the services
+     * @param <S> the type of the service
+     * @return the binding, to be opened
+     */
+    public static <S> ServiceBinding<S> toBestRanked(BundleContext context, Class<S> serviceClass,
+                                                     String filter, String threadName) {
+        ExecutorService rebinder = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        return new ServiceBinding<>(context, serviceClass, filter, null, rebinder);
+    }
+
+    /**
+     * Creates an empty binding fixed to the given service, which is
+     * unbound for good once the service is being unregistered
+     * @param context the framework context for the bundle
+     * @param serviceClass the type of the service
+     * @param reference the reference of the bound service
+     * @param <S> the type of the service
+     * @return the binding, to be opened
+     */
+    public static <S> ServiceBinding<S> toService(BundleContext context, Class<S> serviceClass,
+                                                  ServiceReference<S> reference) {
+        String filter = String.format("(%s=%s)", Constants.SERVICE_ID, reference.getProperty(Constants.SERVICE_ID));
+        return new ServiceBinding<>(context, serviceClass, filter, reference, null);
+    }
+
+    /**
+     * Starts listening for the services and binds the fixed service
+     * or the best ranked registered one
+     * @throws InvalidSyntaxException if the filter is invalid
+     */
+    public void open() throws InvalidSyntaxException {
+        String listenerFilter = String.format("(%s=%s)", Constants.OBJECTCLASS, serviceClass.getName());
+        if (filter != null) {
+            listenerFilter = String.format("(&%s%s)", listenerFilter, filter);
+        }
+        /* A service event may arrive between adding the listener and the
+           query, but binding is idempotent, so no events are lost. If the
+           fixed service has been unregistered meanwhile, getting it fails
+           and empties the binding */
+        context.addServiceListener(this, listenerFilter);
+        if (fixedReference != null) {
+            offer(fixedReference);
+        } else {
+            rebind();
+        }
+    }
+
+    /**
+     * Returns the bound service, getting the service object on first use
+     * @return the bound service, or null if no service is available
+     */
+    public S get() {
+        while (true) {
+            Binding<S> current = binding.get();
+            if (current.reference == null || current.service != null) {
+                return current.service;
+            }
+            S service = context.getService(current.reference);
+            if (service == null) {
+                // The service has gone away, but its event may not have arrived yet
+                if (binding.compareAndSet(current, Binding.empty())) {
+                    scheduleRebind();
+                }
+                continue;
+            }
+            if (binding.compareAndSet(current, new Binding<>(current.reference, service))) {
+                return service;
+            }
+            // The binding has been swapped or another thread has got the service meanwhile
+            context.ungetService(current.reference);
+        }
+    }
+
+    /**
+     * Stops listening for the services and releases the bound one
+     */
+    public void close() {
+        context.removeServiceListener(this);
+        if (rebinder != null) {
+            rebinder.shutdownNow();
+        }
+        release(binding.getAndSet(Binding.empty()));
+    }
+
+    /**
+     * Swaps the binding according to the service event
+     * @param event the fired service event
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public void serviceChanged(ServiceEvent event) {
+        ServiceReference<S> reference = (ServiceReference<S>) event.getServiceReference();
+        switch (event.getType()) {
+            case ServiceEvent.REGISTERED:
+                offer(reference);
+                break;
+            case ServiceEvent.MODIFIED:
+                offer(reference);
+                // The ranking of the bound service may have dropped below the ranking of another one
+                if (reference.equals(binding.get().reference)) {
+                    scheduleRebind();
+                }
+                break;
+            case ServiceEvent.MODIFIED_ENDMATCH:
+            case ServiceEvent.UNREGISTERING:
+                unbind(reference);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Binds the given service if it ranks higher than the bound one
+     */
+    private void offer(ServiceReference<S> reference) {
+        while (true) {
+            Binding<S> current = binding.get();
+            if (current.reference != null && current.reference.compareTo(reference) >= 0) {
+                return;
+            }
+            if (binding.compareAndSet(current, new Binding<>(reference, null))) {
+                release(current);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Empties the binding if the given service is bound and queries the services on another thread
+     */
+    private void unbind(ServiceReference<S> reference) {
+        while (true) {
+            Binding<S> current = binding.get();
+            if (!reference.equals(current.reference)) {
+                return;
+            }
+            if (binding.compareAndSet(current, Binding.empty())) {
+                release(current);
+                scheduleRebind();
+                return;
+            }
+        }
+    }
+
+    private void scheduleRebind() {
+        if (rebinder == null) {
+            // A fixed binding stays empty
+            return;
+        }
+        try {
+            rebinder.execute(this::rebind);
+        } catch (RejectedExecutionException exception) {
+            // The binding has been closed meanwhile
+        }
+    }
+
+    /**
+     * Queries the registered services and binds the best ranked one
+     */
+    private void rebind() {
+        try {
+            Collection<ServiceReference<S>> references = context.getServiceReferences(serviceClass, filter);
+            references.stream().max(ServiceReference::compareTo).ifPresent(this::offer);
+        } catch (InvalidSyntaxException exception) {
+            LOGGER.log(Level.SEVERE, exception.getMessage(), exception);
+        } catch (IllegalStateException exception) {
+            // The bundle has been stopped meanwhile
+        }
+    }
+
+    private void release(Binding<S> released) {
+        if (released.service != null) {
+            try {
+                context.ungetService(released.reference);
+            } catch (IllegalStateException exception) {
+                // The bundle has been stopped meanwhile and its services released
+            }
+        }
+    }
+
+    /**
+     * Immutable pair of a service reference and its service object,
+     * which is null until the service is first used
+     * @param <S> the type of the service
+     */
+    private static final class Binding<S> {
+
+        private static final Binding<?> EMPTY = new Binding<>(null, null);
+
+        private final ServiceReference<S> reference;
+        private final S service;
+
+        private Binding(ServiceReference<S> reference, S service) {
+            this.reference = reference;
+            this.service = service;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <S> Binding<S> empty() {
+            return (Binding<S>) EMPTY;
+        }
+    }
+}
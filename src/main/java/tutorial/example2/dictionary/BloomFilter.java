@@ -0,0 +1,71 @@
+package tutorial.example2.dictionary;
+
+import tutorial.example2.service.WordFilter;
+
+/**
+ * Blocked Bloom filter summarizing the folded words of a dictionary.
+ * Every word sets a few bits within a single 64-bit block chosen by its
+ * hash, so that checking a word costs one hash of its characters and one
+ * memory read, whatever the size of the dictionary is. With the ten bits
+ * per word used here, one or two percent of the words not contained in
+ * the dictionary pass the filter. Once built, instances are immutable
+ * and can be shared between threads
+ */
+public final class BloomFilter implements WordFilter {
+
+    // Number of bits per word
+    private static final int BITS_PER_WORD = 10;
+    // Number of bits set in a block by every word
+    private static final int BITS_PER_KEY = 5;
+
+    private final long[] blocks;
+    // Number of blocks minus one, used to wrap hashes around
+    private final int mask;
+
+    /**
+     * Creates an empty filter sized for the given number of words
+     */
+    BloomFilter(int expectedWords) {
+        long bits = Math.max(Long.SIZE, (long) expectedWords * BITS_PER_WORD);
+        int blockCount = (int) Math.min(1 << 30, Long.highestOneBit(bits / Long.SIZE - 1) << 1);
+        this.blocks = new long[Math.max(1, blockCount)];
+        this.mask = blocks.length - 1;
+    }
+
+    /**
+     * Adds a word to the filter. Only used while the filter is being built
+     */
+    void add(CharSequence word) {
+        int hash = CaseFolding.hash(word, 0, word.length());
+        blocks[hash & mask] |= bitsOf(hash);
+    }
+
+    /**
+     * Check if the given range of characters may be a word of the dictionary
+     * @param text the text containing the word
+     * @param start the index of the first character of the word
+     * @param end the index after the last character of the word
+     * @return false if the word is definitely not in the dictionary,
+     *         true if it may be
+     */
+    @Override
+    public boolean mightContain(CharSequence text, int start, int end) {
+        int hash = CaseFolding.hash(text, start, end);
+        long bits = bitsOf(hash);
+        return (blocks[hash & mask] & bits) == bits;
+    }
+
+    /**
+     * Selects the bits of a block set by a word, using hash bits
+     * independent of the ones selecting the block
+     */
+    private static long bitsOf(int hash) {
+        int remixed = (hash ^ (hash >>> 15)) * 0x2C1B3C6D;
+        long bits = 0;
+        for (int i = 0; i < BITS_PER_KEY; i++) {
+            remixed = Integer.rotateLeft(remixed, 6);
+            bits |= 1L << (remixed & (Long.SIZE - 1));
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,252 @@
+package tutorial.example2.dictionary;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Dictionary service that answers look-ups straight from a memory-mapped
+ * file in a precompiled binary format. No Java objects are created for the
+ * words of the dictionary, neither when it is opened nor when it is used,
+ * so that even a dictionary of millions of words occupies only a few bytes
+ * of the heap and is ready as soon as the file is mapped and validated.
+ * <p>
+ * The file is produced by {@link #compile(Collection, Path)} and has the
+ * following layout, with all numbers stored in big-endian byte order:
+ * <pre>
+ * int   magic number, 0x44494354 ("DICT")
+ * int   format version
+ * int   number of words
+ * int   number of slots, a power of two
+ * int[] slots; every slot holds the position of a word entry relative
+ *       to the beginning of the entries, incremented by one, or 0 if empty
+ * entries, one per word:
+ *   int    hash of the folded word, as computed by {@link CaseFolding#hash}
+ *   short  number of characters of the word
+ *   char[] folded characters of the word
+ * </pre>
+ */
+public class MappedDictionary extends FoldedDictionary {
+
+    private static final int MAGIC = 0x44494354;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 * Integer.BYTES;
+    private static final double MAX_LOAD_FACTOR = 0.5;
+
+    // The mapped content of the dictionary file
+    private final ByteBuffer buffer;
+    // Position of the first slot
+    private final int slotsStart;
+    // Position of the first word entry
+    private final int entriesStart;
+    // Number of slots minus one, used to wrap slot indexes around
+    private final int mask;
+    // Number of distinct words in the dictionary
+    private final int size;
+
+    private MappedDictionary(ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a compiled dictionary file");
+        }
+        if (buffer.getInt(Integer.BYTES) != VERSION) {
+            throw new IOException("Unsupported dictionary format version: " + buffer.getInt(Integer.BYTES));
+        }
+        int slotCount = buffer.getInt(3 * Integer.BYTES);
+        if (Integer.bitCount(slotCount) != 1 || HEADER_SIZE + (long) slotCount * Integer.BYTES > buffer.capacity()) {
+            throw new IOException("Corrupted dictionary file: invalid number of slots " + slotCount);
+        }
+        this.buffer = buffer;
+        this.size = buffer.getInt(2 * Integer.BYTES);
+        this.slotsStart = HEADER_SIZE;
+        this.entriesStart = HEADER_SIZE + slotCount * Integer.BYTES;
+        this.mask = slotCount - 1;
+        validate(slotCount);
+    }
+
+    /**
+     * Checks that the entries fill the rest of the file exactly and that every
+     * slot points to an entry lying within the file, so that a truncated or
+     * corrupted file is rejected here instead of failing or looping in look-ups
+     */
+    private void validate(int slotCount) throws IOException {
+        // A look-up only ends at an empty slot, so there must be at least one
+        if (size < 0 || size >= slotCount) {
+            throw new IOException("Corrupted dictionary file: invalid number of words " + size);
+        }
+        long position = entriesStart;
+        for (int i = 0; i < size; i++) {
+            position = entryEnd(position);
+        }
+        if (position != buffer.capacity()) {
+            throw new IOException("Corrupted dictionary file: the entries end at " + position
+                                  + ", but the file has " + buffer.capacity() + " bytes");
+        }
+        int usedSlots = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            int entry = buffer.getInt(slotsStart + slot * Integer.BYTES);
+            if (entry != 0) {
+                usedSlots++;
+                entryEnd((long) entriesStart + entry - 1);
+            }
+        }
+        if (usedSlots != size) {
+            throw new IOException("Corrupted dictionary file: " + usedSlots + " used slots for " + size + " words");
+        }
+    }
+
+    /**
+     * Returns the position after the entry at the given position
+     * @throws IOException if the entry doesn't lie within the entries
+     */
+    private long entryEnd(long position) throws IOException {
+        if (position < entriesStart || position + Integer.BYTES + Short.BYTES > buffer.capacity()) {
+            throw new IOException("Corrupted dictionary file: entry at " + position + " outside the file");
+        }
+        int length = buffer.getShort((int) position + Integer.BYTES);
+        long end = position + Integer.BYTES + Short.BYTES + (long) length * Character.BYTES;
+        if (length < 0 || end > buffer.capacity()) {
+            throw new IOException("Corrupted dictionary file: entry at " + position + " outside the file");
+        }
+        return end;
+    }
+
+    /**
+     * Maps the given compiled dictionary file into memory and validates it,
+     * which reads it once. The file stays mapped as long as the returned
+     * dictionary is reachable. A byte buffer can't be larger than 2 GB,
+     * so neither can the file
+     * @param file the compiled dictionary file
+     * @return dictionary backed by the mapped file
+     * @throws IOException if the file cannot be read, is too large,
+     *                     or isn't a valid compiled dictionary
+     */
+    public static MappedDictionary open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize > Integer.MAX_VALUE) {
+                throw new IOException("Dictionary file too large to be mapped: " + fileSize + " bytes");
+            }
+            // The mapping remains valid after the channel is closed
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            return new MappedDictionary(mapped);
+        }
+    }
+
+    /**
+     * Compiles the given words into a dictionary file that can be opened
+     * with {@link #open(Path)}. Words that differ only in case are stored once
+     * @param words the words of the dictionary
+     * @param target the file to be written
+     * @throws IOException if the file cannot be written
+     */
+    public static void compile(Collection<String> words, Path target) throws IOException {
+        // Fold and deduplicate the words
+        Set<String> distinctWords = new LinkedHashSet<>();
+        for (String word : words) {
+            if (word.length() > Short.MAX_VALUE) {
+                throw new IllegalArgumentException("Word too long: " + word.substring(0, 32) + "...");
+            }
+            distinctWords.add(CaseFolding.fold(word));
+        }
+        List<String> foldedWords = new ArrayList<>(distinctWords);
+
+        // Place the words into slots, remembering the position of every entry
+        int slotCount = Integer.highestOneBit((int) Math.max(2, foldedWords.size() / MAX_LOAD_FACTOR) - 1) << 1;
+        int[] slots = new int[slotCount];
+        int[] hashes = new int[foldedWords.size()];
+        int entryPosition = 0;
+        for (int i = 0; i < foldedWords.size(); i++) {
+            String word = foldedWords.get(i);
+            hashes[i] = CaseFolding.hash(word, 0, word.length());
+            int slot = hashes[i] & (slotCount - 1);
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & (slotCount - 1);
+            }
+            slots[slot] = entryPosition + 1;
+            entryPosition += Integer.BYTES + Short.BYTES + word.length() * Character.BYTES;
+        }
+
+        try (OutputStream fileStream = Files.newOutputStream(target);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileStream))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(foldedWords.size());
+            out.writeInt(slotCount);
+            for (int slot : slots) {
+                out.writeInt(slot);
+            }
+            for (int i = 0; i < foldedWords.size(); i++) {
+                String word = foldedWords.get(i);
+                out.writeInt(hashes[i]);
+                out.writeShort(word.length());
+                out.writeChars(word);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of distinct words in the dictionary
+     * @return the number of distinct words in the dictionary
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void forEachWord(Consumer<? super CharSequence> action) {
+        int position = entriesStart;
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            int length = buffer.getShort(position + Integer.BYTES);
+            position += Integer.BYTES + Short.BYTES;
+            word.setLength(0);
+            for (int j = 0; j < length; j++, position += Character.BYTES) {
+                word.append(buffer.getChar(position));
+            }
+            action.accept(word);
+        }
+    }
+
+    @Override
+    protected boolean contains(CharSequence text, int start, int end) {
+        int hash = CaseFolding.hash(text, start, end);
+        int slot = hash & mask;
+        // Probe until the word or an empty slot is found
+        int entry;
+        while ((entry = buffer.getInt(slotsStart + slot * Integer.BYTES)) != 0) {
+            int position = entriesStart + entry - 1;
+            if (buffer.getInt(position) == hash && matches(position + Integer.BYTES, text, start, end)) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    private boolean matches(int position, CharSequence text, int start, int end) {
+        if (buffer.getShort(position) != end - start) {
+            return false;
+        }
+        int charPosition = position + Short.BYTES;
+        for (int i = start; i < end; i++, charPosition += Character.BYTES) {
+            if (CaseFolding.fold(text.charAt(i)) != buffer.getChar(charPosition)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
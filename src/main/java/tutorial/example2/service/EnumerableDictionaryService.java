@@ -0,0 +1,25 @@
+package tutorial.example2.service;
+
+import java.util.function.Consumer;
+
+/**
+ * A dictionary service that, apart from verifying the existence
+ * of a word, can also enumerate all of its words, so that other
+ * services, such as spelling suggestions, can be built on top of it.
+ */
+public interface EnumerableDictionaryService extends DictionaryService {
+
+    /**
+     * Returns the number of distinct words in the dictionary
+     * @return the number of distinct words in the dictionary
+     */
+    int size();
+
+    /**
+     * Passes every distinct word of the dictionary, in the form stored by the
+     * dictionary, to the given action. A passed word is only valid until the
+     * action returns, so it must be copied if it is kept
+     * @param action the action performed for every word
+     */
+    void forEachWord(Consumer<? super CharSequence> action);
+}
@@ -0,0 +1,27 @@
+package tutorial.example2.service;
+
+/**
+ * A compact summary of the words of a dictionary service, which can
+ * tell for sure that a word is not in the dictionary. A dictionary
+ * service publishes its summary in the {@value #PROPERTY} property
+ * of its registration, so that its clients can skip the look-ups of
+ * the words that the dictionary definitely doesn't contain.
+ */
+public interface WordFilter {
+
+    /**
+     * Name of the service property holding the summary of a dictionary service
+     */
+    String PROPERTY = "WordFilter";
+
+    /**
+     * Check if a word given as a range of characters of a longer text
+     * may be in the summarized dictionary. The check is case-insensitive
+     * @param text the text containing the word
+     * @param start the index of the first character of the word
+     * @param end the index after the last character of the word
+     * @return false if the word is definitely not in the dictionary,
+     *         true if it may be
+     */
+    boolean mightContain(CharSequence text, int start, int end);
+}
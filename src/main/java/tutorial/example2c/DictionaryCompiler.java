@@ -0,0 +1,50 @@
+package tutorial.example2c;
+
+import tutorial.example2.dictionary.MappedDictionary;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Command line tool that compiles a plain text word list, one word
+ * per line, into a dictionary file used by this bundle. Blank lines
+ * are skipped. Usage:
+ * <pre>
+ * java -cp example2.jar:example2c.jar tutorial.example2c.DictionaryCompiler words.txt words.dic
+ * </pre>
+ */
+public final class DictionaryCompiler {
+
+    private DictionaryCompiler() {
+        // Command line tool
+    }
+
+    /**
+     * Compiles the word list given as the first argument into
+     * the dictionary file given as the second argument
+     * @param args the word list and the dictionary file
+     * @throws IOException if the word list cannot be read or the dictionary file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: DictionaryCompiler <word list> <dictionary file>");
+            return;
+        }
+        Path wordList = Paths.get(args[0]);
+        Path dictionaryFile = Paths.get(args[1]);
+        List<String> words;
+        try (Stream<String> lines = Files.lines(wordList, StandardCharsets.UTF_8)) {
+            words = lines.map(String::strip)
+                         .filter(line -> !line.isEmpty())
+                         .collect(Collectors.toList());
+        }
+        MappedDictionary.compile(words, dictionaryFile);
+        System.out.printf("Compiled %d words into %s%n", words.size(), dictionaryFile);
+    }
+}
@@ -4,14 +4,9 @@ import org.osgi.framework.BundleActivator;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.Filter;
 import org.osgi.util.tracker.ServiceTracker;
+import tutorial.example2.client.ConsoleLoop;
 import tutorial.example2.service.DictionaryService;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.util.logging.Level;
-import java.util.logging.Logger;
-
 /**
  * This class implements a bundle that uses a dictionary
  * service to check for the proper spelling of a word by
@@ -22,31 +17,29 @@ import java.util.logging.Logger;
  * departs, then it stops using it gracefully, or if it needs
  * a service and one arrives, then it starts using it
  * automatically. As before, the bundle uses the first service
- * that it finds and uses the calling thread of the
- * start() method to read words from standard input.
+ * that it finds. It reads words from standard input in a console
+ * loop, so that the start() method returns right away; the loop
+ * is cancelled with the bundle.
  * You can stop checking words by entering an empty line, but
  * to start checking words again you must stop and then restart
  * the bundle
  */
 public class Activator implements BundleActivator {
 
-    private static final Logger LOGGER = Logger.getLogger(Activator.class.getName());
-
     // Bundle's context
     private BundleContext context = null;
     // The service tracker object
-    private ServiceTracker serviceTracker = null;
+    private ServiceTracker<DictionaryService, DictionaryService> serviceTracker = null;
+    // Loop reading words from standard input
+    private ConsoleLoop wordLoop = null;
 
     /**
      * Creates a service tracker to monitor dictionary services and
-     * starts its "word checking loop". It will not be able to check
-     * any words until the service tracker find a dictionary service;
-     * any discovered dictionary service will be automatically used by
-     * the client. It reads words from standard input and checks for
-     * their existence in the discovered dictionary
-     * (NOTE: It is very bad practice to use the calling thread to perform
-     * a lengthy process like this; this is only done for the purpose
-     * of the tutorial)
+     * starts its "word checking loop" as a console loop. It will
+     * not be able to check any words until the service tracker find
+     * a dictionary service; any discovered dictionary service will be
+     * automatically used by the client. It reads words from standard
+     * input and checks for their existence in the discovered dictionary
      * @param context the framework context for the bundle
      */
     @Override
@@ -56,49 +49,42 @@ public class Activator implements BundleActivator {
         // Create a service tracker to monitor dictionary services
         String dicServiceName = DictionaryService.class.getName();
         Filter filter = this.context.createFilter(String.format("(&(objectClass=%s)(Language=*))", dicServiceName));
-        serviceTracker = new ServiceTracker(this.context, filter, null);
+        serviceTracker = new ServiceTracker<>(this.context, filter, null);
         serviceTracker.open();
 
-        try {
-            System.out.println("Enter a blank line to exit");
-            BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
-            String word = "";
-
-            // Loop endlessly
-            while (true) {
-                // Ask the user to enter a word
-                System.out.println("Enter word:");
-                word = in.readLine();
-
-                // Get the selected dictionary service, if available
-                DictionaryService dictionary = (DictionaryService) serviceTracker.getService();
-
-                // If the user entered a blank line, then exit the loop
-                if (word.isEmpty()) {
-                    break;
-                }
-                // If there is no dictionary, then say so
-                else if (dictionary == null) {
-                    System.out.println("No dictionary available");
-                }
-                // Otherwise print whether the word is correct or not
-                else if (dictionary.checkWord(word)) {
-                    System.out.println("The word is correct");
-                } else {
-                    System.out.println("The word is incorrect");
-                }
-            }
-        } catch (IOException exception) {
-            LOGGER.log(Level.SEVERE, exception.getMessage(), exception);
-        }
+        ServiceTracker<DictionaryService, DictionaryService> tracker = serviceTracker;
+        wordLoop = ConsoleLoop.start("Enter word:", word -> checkWord(tracker, word));
     }
 
     /**
-     * Does nothing since the framework will automatically unget any used services
+     * Stops reading words. The framework will automatically unget any used services
      * @param context the framework context for the bundle
      */
     @Override
     public void stop(BundleContext context) throws Exception {
+        wordLoop.cancel();
+        wordLoop = null;
         // NOTE: The service is automatically released
     }
+
+    /**
+     * Checks the entered word in the tracked dictionary and prints whether it is correct
+     * @param tracker the tracker of the dictionary services
+     * @param word the entered word
+     */
+    private static void checkWord(ServiceTracker<DictionaryService, DictionaryService> tracker, String word) {
+        // Get the selected dictionary service, if available
+        DictionaryService dictionary = tracker.getService();
+
+        // If there is no dictionary, then say so
+        if (dictionary == null) {
+            System.out.println("No dictionary available");
+        }
+        // Otherwise print whether the word is correct or not
+        else if (dictionary.checkWord(word)) {
+            System.out.println("The word is correct");
+        } else {
+            System.out.println("The word is incorrect");
+        }
+    }
 }
@@ -0,0 +1,151 @@
+package tutorial.example6;
+
+import tutorial.example6.service.IncrementalSpellChecker;
+import tutorial.example6.service.LanguageSpellChecker;
+import tutorial.example6.service.MisspellingListener;
+import tutorial.example6.service.SpellCheckSession;
+import tutorial.example6.service.StreamingSpellChecker;
+import tutorial.example6.spelling.PassageChecker;
+import tutorial.example6.spelling.StreamChecker;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Spell checker that checks passages against the dictionary services
+ * currently available. The dictionaries are read from a snapshot that
+ * is replaced as a whole when they change, so checking a passage never
+ * locks and never blocks the arrival or departure of dictionaries. The
+ * verdicts on the checked words are cached along with the snapshot,
+ * so a repeated word is looked up in the dictionaries only once.
+ * A passage of a known or detected language can be checked against
+ * the dictionaries of that language only. A document being edited is
+ * followed by a session that checks only the words touched by every edit
+ */
+class SpellCheckerImpl implements StreamingSpellChecker, LanguageSpellChecker, IncrementalSpellChecker {
+
+    // Number of the first words of a passage used to detect its language
+    private static final int DETECTION_SAMPLE_WORDS = 64;
+
+    // Supplies the current snapshot of the dictionary services
+    private final Supplier<DictionarySnapshot> dictionaries;
+    // Checks the passages; large ones in parallel
+    private final PassageChecker passageChecker;
+    // Checks the streams with bounded memory
+    private final StreamChecker streamChecker = new StreamChecker();
+
+    /**
+     * Creates a spell checker using the given dictionary services
+     * @param dictionaries supplies the current snapshot of the dictionary services
+     * @param parallelThreshold the length of a passage, in characters,
+     *                          from which on it is checked in parallel
+     */
+    SpellCheckerImpl(Supplier<DictionarySnapshot> dictionaries, int parallelThreshold) {
+        this.dictionaries = dictionaries;
+        this.passageChecker = new PassageChecker(parallelThreshold);
+    }
+
+    /**
+     * Checks the given passage for misspelled words. Passages
+     * longer than the parallel threshold are checked in parallel
+     * @param passage the passage to spell check
+     * @return An array of misspelled words or null
+     *         if no words are misspelled
+     */
+    @Override
+    public String[] checkPassage(String passage) {
+        /* Take the current snapshot of the dictionaries. Dictionaries
+           arriving or departing in the meantime don't affect it */
+        DictionarySnapshot snapshot = dictionaries.get();
+        return passageChecker.check(passage, snapshot.services(), snapshot.segmenter(), snapshot.cache());
+    }
+
+    /**
+     * Checks the given passage for misspelled words in parallel
+     * @param passage the passage to spell check
+     * @param pool the pool checking the chunks of the passage
+     * @return An array of misspelled words or null
+     *         if no words are misspelled
+     */
+    @Override
+    public String[] checkPassage(String passage, ForkJoinPool pool) {
+        DictionarySnapshot snapshot = dictionaries.get();
+        return passageChecker.check(passage, snapshot.services(), snapshot.segmenter(), snapshot.cache(), pool);
+    }
+
+    /**
+     * Returns the languages of the currently available dictionaries
+     * @return the languages of the available dictionaries
+     */
+    @Override
+    public Set<String> languages() {
+        return dictionaries.get().languages().keySet();
+    }
+
+    /**
+     * Detects the language of the given passage by checking its first
+     * words against the dictionaries of every language
+     * @param passage the passage whose language is detected
+     * @return the language of the passage or null if no dictionaries
+     *         are available or none of them contains any of the words
+     */
+    @Override
+    public String detectLanguage(String passage) {
+        if (passage == null) {
+            return null;
+        }
+        String detectedLanguage = null;
+        int bestCount = 0;
+        for (Map.Entry<String, DictionarySnapshot> language : dictionaries.get().languages().entrySet()) {
+            DictionarySnapshot snapshot = language.getValue();
+            int count = PassageChecker.countCorrectWords(passage, DETECTION_SAMPLE_WORDS, snapshot.services(),
+                                                         snapshot.segmenter(), snapshot.cache());
+            if (count > bestCount) {
+                detectedLanguage = language.getKey();
+                bestCount = count;
+            }
+        }
+        return detectedLanguage;
+    }
+
+    /**
+     * Checks the given passage for misspelled words against
+     * the dictionaries of the given language only
+     * @param passage the passage to spell check
+     * @param language the language of the passage
+     * @return An array of misspelled words or null
+     *         if no words are misspelled
+     */
+    @Override
+    public String[] checkPassage(String passage, String language) {
+        DictionarySnapshot snapshot = dictionaries.get().forLanguage(language);
+        return passageChecker.check(passage, snapshot.services(), snapshot.segmenter(), snapshot.cache());
+    }
+
+    /**
+     * Checks the text read from the given reader for misspelled words
+     * @param reader the reader of the text to spell check
+     * @param listener the listener notified of every misspelled word
+     * @throws IOException if the text cannot be read
+     */
+    @Override
+    public void checkStream(Reader reader, MisspellingListener listener) throws IOException {
+        DictionarySnapshot snapshot = dictionaries.get();
+        streamChecker.check(reader, snapshot.services(), snapshot.segmenter(), snapshot.cache(), listener);
+    }
+
+    /**
+     * Starts a spell checking session of the given document
+     * and checks the whole document
+     * @param document the initial text of the document
+     * @return the session of the document
+     */
+    @Override
+    public SpellCheckSession openSession(String document) {
+        return new SpellCheckSessionImpl(dictionaries, document);
+    }
+}
@@ -0,0 +1,40 @@
+package tutorial.example6;
+
+import tutorial.example6.service.SuggestionService;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Suggestion service that proposes the words of the dictionary services
+ * currently available. The words are looked up in an index that belongs
+ * to the snapshot of the dictionaries, built in the background after the
+ * dictionaries have changed; until it is done, the previous index is used
+ */
+class SuggestionServiceImpl implements SuggestionService {
+
+    // Supplies the current snapshot of the dictionary services
+    private final Supplier<DictionarySnapshot> dictionaries;
+
+    /**
+     * Creates a suggestion service using the given dictionary services
+     * @param dictionaries supplies the current snapshot of the dictionary services
+     */
+    SuggestionServiceImpl(Supplier<DictionarySnapshot> dictionaries) {
+        this.dictionaries = dictionaries;
+    }
+
+    /**
+     * Suggests corrections of the given word from the available dictionaries
+     * that can enumerate their words. At most {@value tutorial.example6.spelling.SuggestionIndex#DEFAULT_MAX_DISTANCE}
+     * edits are supported; a greater distance is treated as that one
+     * @param word the word to be corrected
+     * @param maxDistance the maximal number of edits of the suggested words
+     * @param limit the maximal number of suggested words
+     * @return the suggested words; empty if there are none
+     */
+    @Override
+    public List<String> suggest(String word, int maxDistance, int limit) {
+        return dictionaries.get().suggestions().suggest(word, maxDistance, limit);
+    }
+}
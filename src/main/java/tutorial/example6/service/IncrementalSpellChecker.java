@@ -0,0 +1,18 @@
+package tutorial.example6.service;
+
+/**
+ * A spell checker service that, apart from checking passages, can follow
+ * a document while it is being edited and check only the edited words
+ * again, so that the cost of an edit depends on its size rather than on
+ * the size of the document
+ */
+public interface IncrementalSpellChecker extends SpellChecker {
+
+    /**
+     * Starts a spell checking session of the given document
+     * and checks the whole document
+     * @param document the initial text of the document
+     * @return the session of the document
+     */
+    public SpellCheckSession openSession(String document);
+}
@@ -0,0 +1,60 @@
+package tutorial.example6.service;
+
+import java.util.Objects;
+
+/**
+ * Immutable misspelled word of a document, together with its offset
+ */
+public final class Misspelling {
+
+    private final String word;
+    private final int offset;
+
+    /**
+     * Creates a misspelled word
+     * @param word the misspelled word
+     * @param offset the index of the first character of the word in the document
+     */
+    public Misspelling(String word, int offset) {
+        this.word = word;
+        this.offset = offset;
+    }
+
+    /**
+     * Returns the misspelled word
+     * @return the misspelled word
+     */
+    public String getWord() {
+        return word;
+    }
+
+    /**
+     * Returns the offset of the word
+     * @return the index of the first character of the word in the document
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Misspelling)) {
+            return false;
+        }
+        Misspelling misspelling = (Misspelling) other;
+        return offset == misspelling.offset && word.equals(misspelling.word);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(word, offset);
+    }
+
+    @Override
+    public String toString() {
+        return word + "@" + offset;
+    }
+}
@@ -1,22 +1,43 @@
 package tutorial.example6.service;
 
+import java.util.concurrent.ForkJoinPool;
+
 /**
  * A simple service interface that defines a spell checker service.
  * A spell checker service checks the spelling of all words in a
  * given passage. A passage is any number of words separated by
- * a space character and the following punctuation marks: comma,
- * period, exclamation mark, question mark, semi-colon, and colon
+ * whitespace, punctuation, quotes, symbols and any other characters
+ * that aren't letters, digits or combining marks. Joiners, such as the
+ * apostrophe, belong to a word if they are surrounded by its characters;
+ * which characters are joiners depends on the languages of the
+ * dictionaries the passage is checked against. Words without any
+ * letter, such as numbers, aren't checked
  */
 public interface SpellChecker {
 
     /**
      * Checks a given passage for spelling errors. A passage is any
-     * number of words separated by a space and any of the following
-     * punctuation marks: comma (,), period (.), exclamation mark (!),
-     * question mark (?), semi-colon (;), and colon(:)
+     * number of words separated by characters that aren't parts of
+     * words, as described for the service, with the joiners of the
+     * languages of the dictionaries
      * @param passage the passage to spell check
      * @return An array of misspelled words or null if no
      *         words are misspelled
      */
     public String[] checkPassage(String passage);
+
+    /**
+     * Checks a given passage for spelling errors, the same way as
+     * {@link #checkPassage(String)} does, but splits the passage into
+     * chunks at word boundaries and checks them in parallel on the given
+     * pool. The misspelled words are returned in the passage order.
+     * By default, the passage is checked on the calling thread
+     * @param passage the passage to spell check
+     * @param pool the pool checking the chunks of the passage
+     * @return An array of misspelled words or null if no
+     *         words are misspelled
+     */
+    public default String[] checkPassage(String passage, ForkJoinPool pool) {
+        return checkPassage(passage);
+    }
 }
@@ -0,0 +1,39 @@
+package tutorial.example6.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+
+/**
+ * A spell checker service that, apart from checking passages, can check
+ * a stream of text of any size. Misspelled words are reported as soon as
+ * they are read, so that neither the text nor the found errors have to
+ * be kept in memory. Words are delimited the same way as in a passage
+ */
+public interface StreamingSpellChecker extends SpellChecker {
+
+    /**
+     * Checks the text read from the given reader for spelling errors.
+     * The reader is read until its end, but isn't closed
+     * @param reader the reader of the text to spell check
+     * @param listener the listener notified of every misspelled word
+     * @throws IOException if the text cannot be read
+     */
+    public void checkStream(Reader reader, MisspellingListener listener) throws IOException;
+
+    /**
+     * Checks the text read from the given channel for spelling errors.
+     * The channel is read until its end, but isn't closed. Offsets of
+     * the misspelled words are counted in decoded characters
+     * @param channel the channel of the text to spell check
+     * @param charset the charset of the text
+     * @param listener the listener notified of every misspelled word
+     * @throws IOException if the text cannot be read
+     */
+    public default void checkStream(ReadableByteChannel channel, Charset charset,
+                                    MisspellingListener listener) throws IOException {
+        checkStream(Channels.newReader(channel, charset.newDecoder(), -1), listener);
+    }
+}
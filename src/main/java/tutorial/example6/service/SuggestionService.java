@@ -0,0 +1,23 @@
+package tutorial.example6.service;
+
+import java.util.List;
+
+/**
+ * A simple service interface that defines a spelling suggestion service.
+ * A suggestion service proposes the words of the available dictionaries
+ * that are the closest to a given, typically misspelled, word.
+ */
+public interface SuggestionService {
+
+    /**
+     * Suggests corrections of a given word. The suggested words are at most
+     * the given number of edits away from the word, where a deletion, insertion
+     * or substitution of a character, as well as a transposition of two adjacent
+     * characters, counts as a single edit. The closest words are suggested first
+     * @param word the word to be corrected
+     * @param maxDistance the maximal number of edits of the suggested words
+     * @param limit the maximal number of suggested words
+     * @return the suggested words; empty if there are none
+     */
+    public List<String> suggest(String word, int maxDistance, int limit);
+}
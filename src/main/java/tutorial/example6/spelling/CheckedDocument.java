@@ -0,0 +1,362 @@
+package tutorial.example6.spelling;
+
+import tutorial.example2.service.DictionaryService;
+import tutorial.example6.service.Misspelling;
+import tutorial.example6.service.MisspellingChange;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Spell checking engine for a document being edited. The document keeps its
+ * text, the offsets of its words and the verdicts on them. An edit replaces
+ * a range of the text; since the words on both sides of a separator are
+ * independent, only the stretch of text between the separators around the
+ * edit is split into words again, and only these words are looked up.
+ * <p>
+ * The text and the words are kept in gap buffers, whose gaps follow the
+ * edits. The words after the gap keep their offsets relative to the end of
+ * the text, so they are moved by a change of the text length without being
+ * touched. An edit thus costs its own size plus the distance from the
+ * previous edit: a run of edits at one place, such as typing, doesn't depend
+ * on the size of the document, while a jump across the document costs as
+ * much as moving the text and the words in between.
+ * <p>
+ * The verdicts are only valid for the dictionaries they were computed with:
+ * if an edit comes with other dictionaries or segmenting rules than the
+ * previous one, then the whole document is checked again. A document isn't
+ * safe for use by multiple threads
+ */
+public final class CheckedDocument {
+
+    // Initial size of the gap of the text and of the words
+    private static final int INITIAL_GAP = 64;
+
+    // Characters of the text, with a gap between gapStart and gapEnd
+    private char[] buffer;
+    private int gapStart;
+    private int gapEnd;
+    // View of the text without the gap, for the tokenizer and the dictionaries
+    private final CharSequence text = new TextView();
+
+    /* Words of the document, with a gap between wordGapStart and wordGapEnd.
+       The offsets of the words before the gap are indexes in the text, while
+       the offsets of the words after it are relative to the end of the text */
+    // Offset of the first character of every word
+    private int[] starts = new int[INITIAL_GAP];
+    // Offset after the last character of every word
+    private int[] ends = new int[INITIAL_GAP];
+    // Whether every word is correct
+    private boolean[] correct = new boolean[INITIAL_GAP];
+    private int wordGapStart = 0;
+    private int wordGapEnd = INITIAL_GAP;
+
+    // The dictionaries and the rules the verdicts were computed with
+    private DictionaryService[] dictionaries = null;
+    private WordSegmenter segmenter = null;
+
+    /**
+     * Creates a document with the given text, not checked yet
+     * @param text the initial text of the document
+     */
+    public CheckedDocument(String text) {
+        this.buffer = new char[text.length() + INITIAL_GAP];
+        text.getChars(0, text.length(), buffer, 0);
+        this.gapStart = text.length();
+        this.gapEnd = buffer.length;
+    }
+
+    /**
+     * Returns the current text of the document
+     * @return the text of the document
+     */
+    public String text() {
+        return text.toString();
+    }
+
+    /**
+     * Returns the misspelled words of the document
+     * @return the misspelled words, in the order of their offsets
+     */
+    public List<Misspelling> misspellings() {
+        return misspellings(0, wordCount());
+    }
+
+    /**
+     * Checks the whole document against the given dictionaries
+     * @param dictionaries the dictionaries to check the words against
+     * @param segmenter the rules splitting the text into words
+     * @param cache the verdicts on the words checked against the same
+     *              dictionaries before, or null if none are cached
+     * @return the change of the misspelled words since the previous check
+     */
+    public MisspellingChange check(DictionaryService[] dictionaries, WordSegmenter segmenter, VerdictCache cache) {
+        return edit(0, 0, "", dictionaries, segmenter, cache);
+    }
+
+    /**
+     * Replaces a range of the text with the given text and checks the words
+     * touched by the replacement against the given dictionaries
+     * @param offset the index of the first replaced character
+     * @param removedLength the number of replaced characters
+     * @param insertedText the text inserted in place of the replaced characters
+     * @param dictionaries the dictionaries to check the words against
+     * @param segmenter the rules splitting the text into words
+     * @param cache the verdicts on the words checked against the same
+     *              dictionaries before, or null if none are cached
+     * @return the change of the misspelled words caused by the edit
+     * @throws IndexOutOfBoundsException if the range is outside the text
+     */
+    public MisspellingChange edit(int offset, int removedLength, String insertedText,
+                                  DictionaryService[] dictionaries, WordSegmenter segmenter, VerdictCache cache) {
+        if (offset < 0 || removedLength < 0 || offset + removedLength > length()) {
+            throw new IndexOutOfBoundsException(String.format(
+                    "Range [%d, %d) outside the document of length %d", offset, offset + removedLength, length()));
+        }
+        int removedEnd = offset + removedLength;
+        int lengthChange = insertedText.length() - removedLength;
+
+        /* Stretch of the old text, from the separator before the edit to the
+           separator after it, whose words may change. The text around the
+           edit is the same before and after it, so is the stretch */
+        int regionStart = 0;
+        int regionEnd = length();
+        if (dictionaries == this.dictionaries && segmenter == this.segmenter) {
+            regionStart = offset;
+            while (regionStart > 0 && !segmenter.isSeparator(charAt(regionStart - 1))) {
+                regionStart--;
+            }
+            regionEnd = removedEnd;
+            while (regionEnd < length() && !segmenter.isSeparator(charAt(regionEnd))) {
+                regionEnd++;
+            }
+        }
+        this.dictionaries = dictionaries;
+        this.segmenter = segmenter;
+
+        /* Drop the old words of the stretch into the gap of the words, before
+           the text changes, so that the words after the gap move with its end */
+        int first = firstWordFrom(regionStart);
+        int last = firstWordFrom(regionEnd);
+        List<Misspelling> removed = misspellings(first, last);
+        moveWordGap(first);
+        wordGapEnd += last - first;
+        replaceText(offset, removedLength, insertedText);
+
+        // Check the words of the edited stretch and put them before the gap
+        TokenBuffer tokens = new TokenBuffer();
+        new Tokenizer(segmenter).tokenize(text, regionStart, regionEnd + lengthChange, tokens);
+        BitSet found = PassageChecker.findCorrectWords(text, tokens, dictionaries, cache);
+        insertWords(tokens, found);
+        List<Misspelling> added = misspellings(first, first + tokens.count());
+
+        return difference(removed, added, removedEnd, lengthChange);
+    }
+
+    private int length() {
+        return buffer.length - (gapEnd - gapStart);
+    }
+
+    private char charAt(int index) {
+        return buffer[index < gapStart ? index : index + gapEnd - gapStart];
+    }
+
+    /**
+     * Replaces a range of the text, moving the gap of the text to the range first
+     */
+    private void replaceText(int offset, int removedLength, String insertedText) {
+        if (offset < gapStart) {
+            int moved = gapStart - offset;
+            System.arraycopy(buffer, offset, buffer, gapEnd - moved, moved);
+            gapStart -= moved;
+            gapEnd -= moved;
+        } else if (offset > gapStart) {
+            int moved = offset - gapStart;
+            System.arraycopy(buffer, gapEnd, buffer, gapStart, moved);
+            gapStart += moved;
+            gapEnd += moved;
+        }
+        gapEnd += removedLength;
+        if (gapEnd - gapStart < insertedText.length()) {
+            int afterGap = buffer.length - gapEnd;
+            char[] grown = new char[Math.max(2 * buffer.length, gapStart + insertedText.length() + afterGap)
+                                    + INITIAL_GAP];
+            System.arraycopy(buffer, 0, grown, 0, gapStart);
+            System.arraycopy(buffer, gapEnd, grown, grown.length - afterGap, afterGap);
+            buffer = grown;
+            gapEnd = grown.length - afterGap;
+        }
+        insertedText.getChars(0, insertedText.length(), buffer, gapStart);
+        gapStart += insertedText.length();
+    }
+
+    private int wordCount() {
+        return starts.length - (wordGapEnd - wordGapStart);
+    }
+
+    private int start(int word) {
+        return word < wordGapStart ? starts[word] : starts[word + wordGapEnd - wordGapStart] + length();
+    }
+
+    private int end(int word) {
+        return word < wordGapStart ? ends[word] : ends[word + wordGapEnd - wordGapStart] + length();
+    }
+
+    private boolean isCorrect(int word) {
+        return correct[word < wordGapStart ? word : word + wordGapEnd - wordGapStart];
+    }
+
+    /**
+     * Moves the gap of the words to the given word, turning the offsets of
+     * the moved words from indexes in the text into ones relative to its end,
+     * or back
+     */
+    private void moveWordGap(int word) {
+        if (word < wordGapStart) {
+            int moved = wordGapStart - word;
+            int to = wordGapEnd - moved;
+            moveWords(word, to, moved, -length());
+            wordGapStart = word;
+            wordGapEnd = to;
+        } else if (word > wordGapStart) {
+            int moved = word - wordGapStart;
+            moveWords(wordGapEnd, wordGapStart, moved, length());
+            wordGapStart = word;
+            wordGapEnd += moved;
+        }
+    }
+
+    private void moveWords(int from, int to, int moved, int offsetChange) {
+        System.arraycopy(starts, from, starts, to, moved);
+        System.arraycopy(ends, from, ends, to, moved);
+        System.arraycopy(correct, from, correct, to, moved);
+        for (int i = to; i < to + moved; i++) {
+            starts[i] += offsetChange;
+            ends[i] += offsetChange;
+        }
+    }
+
+    /**
+     * Inserts the given words into the gap of the words
+     */
+    private void insertWords(TokenBuffer tokens, BitSet found) {
+        if (wordGapEnd - wordGapStart < tokens.count()) {
+            int afterGap = starts.length - wordGapEnd;
+            int capacity = Math.max(2 * starts.length, wordGapStart + tokens.count() + afterGap) + INITIAL_GAP;
+            starts = grow(starts, capacity, afterGap);
+            ends = grow(ends, capacity, afterGap);
+            boolean[] grownCorrect = new boolean[capacity];
+            System.arraycopy(correct, 0, grownCorrect, 0, wordGapStart);
+            System.arraycopy(correct, wordGapEnd, grownCorrect, capacity - afterGap, afterGap);
+            correct = grownCorrect;
+            wordGapEnd = capacity - afterGap;
+        }
+        for (int i = 0; i < tokens.count(); i++) {
+            starts[wordGapStart] = tokens.start(i);
+            ends[wordGapStart] = tokens.end(i);
+            correct[wordGapStart] = found.get(i);
+            wordGapStart++;
+        }
+    }
+
+    private int[] grow(int[] offsets, int capacity, int afterGap) {
+        int[] grown = new int[capacity];
+        System.arraycopy(offsets, 0, grown, 0, wordGapStart);
+        System.arraycopy(offsets, wordGapEnd, grown, capacity - afterGap, afterGap);
+        return grown;
+    }
+
+    /**
+     * Finds the first word starting at or after the given index
+     */
+    private int firstWordFrom(int index) {
+        int low = 0;
+        int high = wordCount();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (start(middle) < index) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private List<Misspelling> misspellings(int from, int to) {
+        List<Misspelling> misspellings = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            if (!isCorrect(i)) {
+                misspellings.add(new Misspelling(text.subSequence(start(i), end(i)).toString(), start(i)));
+            }
+        }
+        return misspellings;
+    }
+
+    /**
+     * Leaves out the misspellings that are both removed and added,
+     * since the edit has at most moved them
+     * @param removedEnd the index after the removed characters of the old text
+     */
+    private static MisspellingChange difference(List<Misspelling> removed, List<Misspelling> added,
+                                                int removedEnd, int lengthChange) {
+        Set<Misspelling> remaining = new HashSet<>(added);
+        List<Misspelling> actuallyRemoved = new ArrayList<>();
+        Set<Misspelling> moved = new HashSet<>();
+        for (Misspelling misspelling : removed) {
+            // Where the misspelling is after the edit, if the edit hasn't touched it
+            Misspelling afterEdit = misspelling.getOffset() < removedEnd
+                                    ? misspelling
+                                    : new Misspelling(misspelling.getWord(), misspelling.getOffset() + lengthChange);
+            if (remaining.contains(afterEdit)) {
+                moved.add(afterEdit);
+            } else {
+                actuallyRemoved.add(misspelling);
+            }
+        }
+        List<Misspelling> actuallyAdded = new ArrayList<>();
+        for (Misspelling misspelling : added) {
+            if (!moved.contains(misspelling)) {
+                actuallyAdded.add(misspelling);
+            }
+        }
+        return new MisspellingChange(actuallyRemoved, actuallyAdded);
+    }
+
+    /**
+     * Read-only view of the text without the gap
+     */
+    private final class TextView implements CharSequence {
+
+        @Override
+        public int length() {
+            return CheckedDocument.this.length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            return CheckedDocument.this.charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            char[] characters = new char[end - start];
+            if (start < gapStart) {
+                System.arraycopy(buffer, start, characters, 0, Math.min(end, gapStart) - start);
+            }
+            if (end > gapStart) {
+                int from = Math.max(start, gapStart);
+                System.arraycopy(buffer, from + gapEnd - gapStart, characters, from - start, end - from);
+            }
+            return new String(characters);
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, length()).toString();
+        }
+    }
+}
@@ -0,0 +1,409 @@
+package tutorial.example6.spelling;
+
+import tutorial.example2.dictionary.CaseFolding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Index of the words of a set of dictionaries that finds the words within
+ * a small edit distance of a misspelled word, using the symmetric delete
+ * algorithm of SymSpell. Every word is indexed under all the strings that
+ * arise from deleting up to the maximal distance of characters from its
+ * prefix; a query generates the same deletions of the misspelled word and
+ * looks them up, so that only a handful of candidates have their distance
+ * computed, whatever the size of the dictionaries is.
+ * <p>
+ * The deletions are indexed by their hashes only, in a few flat arrays,
+ * so that the index of a large dictionary doesn't consist of millions of
+ * strings; a hash collision merely adds a candidate, which is then rejected
+ * by its distance. Words are indexed and looked up in the folded form
+ * defined by {@link CaseFolding}. Instances are immutable and can be
+ * shared between threads
+ */
+public final class SuggestionIndex {
+
+    /**
+     * Default maximal edit distance of the suggested words
+     */
+    public static final int DEFAULT_MAX_DISTANCE = 2;
+
+    // Number of the first characters of a word whose deletions are indexed
+    private static final int PREFIX_LENGTH = 7;
+
+    private final int maxDistance;
+    // Folded characters of all words, one word after another
+    private final char[] pool;
+    // The word i occupies pool[offsets[i]] to pool[offsets[i + 1]]
+    private final int[] offsets;
+    // Distinct hashes of the deletions, sorted
+    private final int[] keys;
+    // The words of the key i are postings[firstPostings[i]] to postings[firstPostings[i + 1]]
+    private final int[] firstPostings;
+    // Indexes of the words having every deletion
+    private final int[] postings;
+
+    private SuggestionIndex(Builder builder) {
+        this.maxDistance = builder.maxDistance;
+        List<String> words = new ArrayList<>(builder.words);
+        this.offsets = new int[words.size() + 1];
+        this.pool = new char[words.stream().mapToInt(String::length).sum()];
+        for (int i = 0; i < words.size(); i++) {
+            words.get(i).getChars(0, words.get(i).length(), pool, offsets[i]);
+            offsets[i + 1] = offsets[i] + words.get(i).length();
+        }
+
+        // Pair every word with the hashes of its deletions, sorted by the hash
+        LongList pairs = new LongList();
+        char[] prefix = new char[PREFIX_LENGTH];
+        for (int i = 0; i < words.size(); i++) {
+            int prefixLength = Math.min(PREFIX_LENGTH, words.get(i).length());
+            words.get(i).getChars(0, prefixLength, prefix, 0);
+            int word = i;
+            forEachDeletion(prefix, prefixLength, maxDistance, hash -> pairs.add(((long) hash << 32) | word));
+        }
+        long[] sortedPairs = pairs.toSortedDistinctArray();
+
+        // Group the words by the hash
+        int[] allKeys = new int[sortedPairs.length];
+        int[] allFirstPostings = new int[sortedPairs.length + 1];
+        this.postings = new int[sortedPairs.length];
+        int keyCount = 0;
+        for (int i = 0; i < sortedPairs.length; i++) {
+            int hash = (int) (sortedPairs[i] >> 32);
+            if (keyCount == 0 || allKeys[keyCount - 1] != hash) {
+                allKeys[keyCount] = hash;
+                allFirstPostings[keyCount++] = i;
+            }
+            postings[i] = (int) sortedPairs[i];
+        }
+        allFirstPostings[keyCount] = sortedPairs.length;
+        this.keys = Arrays.copyOf(allKeys, keyCount);
+        this.firstPostings = Arrays.copyOf(allFirstPostings, keyCount + 1);
+    }
+
+    /**
+     * Creates a builder of an index for the default maximal distance
+     * @return the builder of an index
+     */
+    public static Builder builder() {
+        return builder(DEFAULT_MAX_DISTANCE);
+    }
+
+    /**
+     * Creates a builder of an index for the given maximal distance
+     * @param maxDistance the maximal edit distance of the suggested words
+     * @return the builder of an index
+     */
+    public static Builder builder(int maxDistance) {
+        return new Builder(maxDistance);
+    }
+
+    /**
+     * Returns the number of distinct words in the index
+     * @return the number of distinct words in the index
+     */
+    public int size() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * Finds the words within the given edit distance of a given word. A deletion,
+     * insertion or substitution of a character, as well as a transposition of two
+     * adjacent characters, counts as a single edit. The words are returned in the
+     * folded form, the closest first, and in lexicographic order within a distance
+     * @param word the word for which suggestions are made
+     * @param distance the maximal edit distance of the suggested words,
+     *                 at most the maximal distance of the index
+     * @param limit the maximal number of suggested words
+     * @return the suggested words; empty if there are none
+     */
+    public List<String> suggest(String word, int distance, int limit) {
+        int maxWordDistance = Math.min(distance, maxDistance);
+        if (word == null || maxWordDistance < 0 || limit <= 0) {
+            return new ArrayList<>();
+        }
+        String folded = CaseFolding.fold(word);
+
+        /* Check the words sharing any deletion with the given one,
+           keeping the closest ones that are really close enough */
+        Search search = new Search(folded, maxWordDistance, limit);
+        int prefixLength = Math.min(PREFIX_LENGTH, folded.length());
+        forEachDeletion(folded.substring(0, prefixLength).toCharArray(), prefixLength, maxWordDistance, hash -> {
+            int key = Arrays.binarySearch(keys, hash);
+            if (key >= 0) {
+                for (int i = firstPostings[key]; i < firstPostings[key + 1]; i++) {
+                    search.check(postings[i]);
+                }
+            }
+        });
+        return search.words();
+    }
+
+    /**
+     * Search for the words closest to a given one. Only the best words
+     * found so far are kept, as indexes into the pool, so that no strings
+     * are created for the candidates that don't make it into the result
+     */
+    private final class Search {
+
+        private final String word;
+        private final int maxDistance;
+        private final int limit;
+        // Candidates already checked
+        private final IntSet checked = new IntSet();
+        // Rows of the distance matrix, reused for every candidate
+        private int[] previousRow;
+        private int[] row;
+        private int[] nextRow;
+        // The best words so far, sorted, and their distances
+        private int[] best;
+        private int[] bestDistances;
+        private int bestCount;
+
+        private Search(String word, int maxDistance, int limit) {
+            this.word = word;
+            this.maxDistance = maxDistance;
+            this.limit = limit;
+            int rowLength = word.length() + maxDistance + 1;
+            this.previousRow = new int[rowLength];
+            this.row = new int[rowLength];
+            this.nextRow = new int[rowLength];
+            this.best = new int[Math.min(limit, 16)];
+            this.bestDistances = new int[best.length];
+        }
+
+        private void check(int candidate) {
+            int candidateLength = offsets[candidate + 1] - offsets[candidate];
+            if (Math.abs(candidateLength - word.length()) > maxDistance || !checked.add(candidate)) {
+                return;
+            }
+            int candidateDistance = distance(offsets[candidate], candidateLength);
+            if (candidateDistance > maxDistance
+                || bestCount == limit && compare(candidate, candidateDistance, bestCount - 1) >= 0) {
+                return;
+            }
+            // Insert the candidate in order, dropping the worst word if there are enough
+            if (bestCount == best.length && bestCount < limit) {
+                best = Arrays.copyOf(best, Math.min(limit, bestCount * 2));
+                bestDistances = Arrays.copyOf(bestDistances, best.length);
+            }
+            int index = Math.min(bestCount, limit - 1);
+            while (index > 0 && compare(candidate, candidateDistance, index - 1) < 0) {
+                best[index] = best[index - 1];
+                bestDistances[index] = bestDistances[index - 1];
+                index--;
+            }
+            best[index] = candidate;
+            bestDistances[index] = candidateDistance;
+            bestCount = Math.min(bestCount + 1, limit);
+        }
+
+        /**
+         * Compares a candidate with one of the best words, by
+         * the distance and then in lexicographic order
+         */
+        private int compare(int candidate, int candidateDistance, int bestIndex) {
+            if (candidateDistance != bestDistances[bestIndex]) {
+                return Integer.compare(candidateDistance, bestDistances[bestIndex]);
+            }
+            int other = best[bestIndex];
+            int length = offsets[candidate + 1] - offsets[candidate];
+            int otherLength = offsets[other + 1] - offsets[other];
+            for (int i = 0; i < length && i < otherLength; i++) {
+                int difference = pool[offsets[candidate] + i] - pool[offsets[other] + i];
+                if (difference != 0) {
+                    return difference;
+                }
+            }
+            return length - otherLength;
+        }
+
+        private List<String> words() {
+            List<String> words = new ArrayList<>(bestCount);
+            for (int i = 0; i < bestCount; i++) {
+                words.add(new String(pool, offsets[best[i]], offsets[best[i] + 1] - offsets[best[i]]));
+            }
+            return words;
+        }
+
+        /**
+         * Computes the optimal string alignment distance between the word and
+         * a word of the pool, giving up as soon as it exceeds the maximal distance
+         * @return the distance, or a number greater than the maximal distance if it exceeds it
+         */
+        private int distance(int start, int length) {
+            for (int j = 0; j <= length; j++) {
+                row[j] = j;
+            }
+            for (int i = 1; i <= word.length(); i++) {
+                int[] oldestRow = previousRow;
+                previousRow = row;
+                row = nextRow;
+                nextRow = oldestRow;
+                row[0] = i;
+                int rowMinimum = i;
+                char character = word.charAt(i - 1);
+                for (int j = 1; j <= length; j++) {
+                    int cost = character == pool[start + j - 1] ? 0 : 1;
+                    int value = Math.min(Math.min(previousRow[j] + 1, row[j - 1] + 1), previousRow[j - 1] + cost);
+                    if (i > 1 && j > 1 && character == pool[start + j - 2]
+                        && word.charAt(i - 2) == pool[start + j - 1]) {
+                        value = Math.min(value, nextRow[j - 2] + 1);
+                    }
+                    row[j] = value;
+                    rowMinimum = Math.min(rowMinimum, value);
+                }
+                if (rowMinimum > maxDistance) {
+                    return maxDistance + 1;
+                }
+            }
+            return row[length];
+        }
+    }
+
+    /**
+     * Passes the hash of every string arising from deleting up to the given
+     * number of characters from the given ones, including none, to the action.
+     * The same string may be passed more than once
+     */
+    private static void forEachDeletion(char[] characters, int length, int deletions, IntAction action) {
+        action.accept(hash(characters, length));
+        if (deletions > 0 && length > 0) {
+            char[] shorter = new char[length - 1];
+            deleteFrom(characters, length, 0, deletions, shorter, action);
+        }
+    }
+
+    /**
+     * Deletes every character at or after the given index, one at a time,
+     * and continues deleting from the shorter strings at or after that index
+     */
+    private static void deleteFrom(char[] characters, int length, int from, int deletions,
+                                   char[] shorter, IntAction action) {
+        for (int i = from; i < length; i++) {
+            System.arraycopy(characters, 0, shorter, 0, i);
+            System.arraycopy(characters, i + 1, shorter, i, length - i - 1);
+            action.accept(hash(shorter, length - 1));
+            if (deletions > 1 && length > 1) {
+                deleteFrom(shorter.clone(), length - 1, i, deletions - 1, new char[length - 2], action);
+            }
+        }
+    }
+
+    private static int hash(char[] characters, int length) {
+        int hash = length;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + characters[i];
+        }
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Builder of an index, collecting the distinct words of the dictionaries
+     */
+    public static final class Builder {
+
+        private final int maxDistance;
+        private final Set<String> words = new LinkedHashSet<>();
+
+        private Builder(int maxDistance) {
+            this.maxDistance = maxDistance;
+        }
+
+        /**
+         * Adds a word to the index
+         * @param word the added word
+         */
+        public void add(CharSequence word) {
+            words.add(CaseFolding.fold(word));
+        }
+
+        /**
+         * Builds the index of the added words
+         * @return the index of the added words
+         */
+        public SuggestionIndex build() {
+            return new SuggestionIndex(this);
+        }
+    }
+
+    /**
+     * Open-addressing set of non-negative ints, so that
+     * the checked candidates don't have to be boxed
+     */
+    private static final class IntSet {
+
+        private int[] slots = new int[64];
+        // Number of the low bits of a hash dropped to get a slot, so that the high bits are kept
+        private int shift = Integer.SIZE - 6;
+        private int size;
+
+        /**
+         * Adds a value to the set
+         * @return true if the value wasn't in the set yet
+         */
+        private boolean add(int value) {
+            if (2 * (size + 1) > slots.length) {
+                int[] oldSlots = slots;
+                slots = new int[oldSlots.length * 2];
+                shift--;
+                size = 0;
+                for (int slot : oldSlots) {
+                    if (slot != 0) {
+                        add(slot - 1);
+                    }
+                }
+            }
+            int mask = slots.length - 1;
+            // The high bits of the product are the best mixed ones
+            int slot = (value * 0x9E3779B9) >>> shift;
+            while (slots[slot] != 0) {
+                if (slots[slot] == value + 1) {
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = value + 1;
+            size++;
+            return true;
+        }
+    }
+
+    private interface IntAction {
+
+        void accept(int value);
+    }
+
+    /**
+     * Growable list of primitive longs, so that the pairs of a large
+     * dictionary don't have to be boxed while the index is built
+     */
+    private static final class LongList {
+
+        private long[] values = new long[1024];
+        private int size;
+
+        private void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private long[] toSortedDistinctArray() {
+            Arrays.sort(values, 0, size);
+            int distinctCount = 0;
+            for (int i = 0; i < size; i++) {
+                if (distinctCount == 0 || values[distinctCount - 1] != values[i]) {
+                    values[distinctCount++] = values[i];
+                }
+            }
+            return Arrays.copyOf(values, distinctCount);
+        }
+    }
+}
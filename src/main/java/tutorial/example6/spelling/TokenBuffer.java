@@ -0,0 +1,74 @@
+package tutorial.example6.spelling;
+
+import java.util.Arrays;
+
+/**
+ * Reusable buffer of the tokens of a text, each kept as a pair of
+ * offsets into the text instead of a string. The buffer grows as
+ * needed and keeps its capacity when cleared, so a buffer reused
+ * for many texts stops allocating once it is large enough
+ */
+public final class TokenBuffer {
+
+    // Index of the first character of every token
+    int[] starts;
+    // Index after the last character of every token
+    int[] ends;
+    // Number of tokens in the buffer
+    private int count;
+
+    /**
+     * Creates an empty buffer
+     */
+    public TokenBuffer() {
+        this.starts = new int[64];
+        this.ends = new int[64];
+    }
+
+    /**
+     * Removes all tokens from the buffer, keeping its capacity
+     */
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * Appends a token to the buffer
+     * @param start the index of the first character of the token
+     * @param end the index after the last character of the token
+     */
+    public void add(int start, int end) {
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+        }
+        starts[count] = start;
+        ends[count++] = end;
+    }
+
+    /**
+     * Returns the number of tokens in the buffer
+     * @return the number of tokens in the buffer
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Returns the index of the first character of a token
+     * @param index the index of the token
+     * @return the index of the first character of the token
+     */
+    public int start(int index) {
+        return starts[index];
+    }
+
+    /**
+     * Returns the index after the last character of a token
+     * @param index the index of the token
+     * @return the index after the last character of the token
+     */
+    public int end(int index) {
+        return ends[index];
+    }
+}
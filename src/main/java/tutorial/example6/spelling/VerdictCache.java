@@ -0,0 +1,122 @@
+package tutorial.example6.spelling;
+
+/**
+ * Bounded cache of the verdicts on recently checked words. Prose repeats
+ * a small vocabulary, so most words of a passage have been checked before
+ * and their verdicts can be reused without asking any dictionary.
+ * <p>
+ * The cache is a fixed-size table in which every word has a single slot,
+ * chosen by its hash; a word replaces whatever word was cached in its slot
+ * before. Frequent words thus keep coming back into the table, while the
+ * memory used never grows. The verdicts are only valid for the dictionaries
+ * they were computed with, so a cache must be dropped as soon as the set of
+ * dictionaries changes. Words are cached with their exact characters, so no
+ * assumption is made about how the dictionaries compare them.
+ * <p>
+ * The cache can be used by any number of threads without locking: the cached
+ * entries are immutable, so a thread reads either a complete entry or none
+ */
+public final class VerdictCache {
+
+    /**
+     * Default number of slots of a cache
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 12;
+
+    // Words longer than that are rare and not worth caching
+    private static final int MAX_WORD_LENGTH = 32;
+
+    private final Entry[] entries;
+    // Number of slots minus one, used to wrap hashes around
+    private final int mask;
+
+    /**
+     * Creates a cache with the default capacity
+     */
+    public VerdictCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a cache with the given capacity, rounded up to a power of two
+     * @param capacity the maximal number of cached verdicts
+     */
+    public VerdictCache(int capacity) {
+        int slotCount = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.entries = new Entry[slotCount];
+        this.mask = slotCount - 1;
+    }
+
+    /**
+     * Looks up the verdict on the given range of characters
+     * @param text the text containing the word
+     * @param start the index of the first character of the word
+     * @param end the index after the last character of the word
+     * @return 1 if the word is correct, 0 if it is misspelled,
+     *         or -1 if the verdict isn't cached
+     */
+    int get(CharSequence text, int start, int end) {
+        if (end - start > MAX_WORD_LENGTH) {
+            return -1;
+        }
+        int hash = hash(text, start, end);
+        Entry entry = entries[hash & mask];
+        if (entry == null || entry.hash != hash || !entry.matches(text, start, end)) {
+            return -1;
+        }
+        return entry.correct ? 1 : 0;
+    }
+
+    /**
+     * Caches the verdict on the given range of characters
+     * @param text the text containing the word
+     * @param start the index of the first character of the word
+     * @param end the index after the last character of the word
+     * @param correct whether the word is correct
+     */
+    void put(CharSequence text, int start, int end, boolean correct) {
+        if (end - start > MAX_WORD_LENGTH) {
+            return;
+        }
+        int hash = hash(text, start, end);
+        entries[hash & mask] = new Entry(text.subSequence(start, end).toString(), hash, correct);
+    }
+
+    private static int hash(CharSequence text, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Cached verdict on a word. All the fields are final,
+     * so an entry is safely published by a plain write
+     */
+    private static final class Entry {
+
+        private final String word;
+        private final int hash;
+        private final boolean correct;
+
+        private Entry(String word, int hash, boolean correct) {
+            this.word = word;
+            this.hash = hash;
+            this.correct = correct;
+        }
+
+        private boolean matches(CharSequence text, int start, int end) {
+            if (word.length() != end - start) {
+                return false;
+            }
+            for (int i = 0; i < word.length(); i++) {
+                if (word.charAt(i) != text.charAt(start + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package tutorial.example7;
+
+import org.osgi.util.tracker.ServiceTracker;
+import tutorial.example6.service.SpellChecker;
+import tutorial.example6.service.StreamingSpellChecker;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Spell check of all text files of a directory tree, run on its own thread.
+ * Every file is decoded a buffer at a time and checked with a streaming spell
+ * checker, which reports the offsets of the misspelled words, so that the
+ * memory used doesn't depend on the size of the file. The lines and columns
+ * of the misspelled words are found by reading the file once more, only if
+ * any words are misspelled. The files are checked by a
+ * pool of as many workers as there are processors; the queue of the pool is
+ * bounded and, when it is full, the walking thread checks the next file
+ * itself, so that the files waiting to be checked are never too many.
+ * <p>
+ * The misspelled words of every file are collected in memory, as tab-separated
+ * lines of the word, the file, the line and the column, and written for all
+ * files together, in the order of the file paths, once the check is done.
+ * The check ends with a report of the number of the checked files and bytes
+ * and the rate at which they have been checked
+ */
+final class BatchCheck {
+
+    private static final Logger LOGGER = Logger.getLogger(BatchCheck.class.getName());
+
+    // How long the check waits for a spell checker service to be registered
+    private static final long SERVICE_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(10);
+    // How long the cancellation waits for the check to stop
+    private static final long CANCEL_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(1);
+
+    private final ServiceTracker<SpellChecker, SpellChecker> tracker;
+    private final Path root;
+    private final PathMatcher fileMatcher;
+    private final Path output;
+    private final Thread thread;
+
+    private BatchCheck(ServiceTracker<SpellChecker, SpellChecker> tracker, Path root, String filePattern, Path output) {
+        this.tracker = tracker;
+        this.root = root;
+        this.fileMatcher = root.getFileSystem().getPathMatcher("glob:" + filePattern);
+        this.output = output;
+        this.thread = new Thread(this::run, "Ex7 batch check");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Starts checking the files of the given directory tree
+     * @param tracker the tracker of the streaming spell checker services
+     * @param root the root of the checked directory tree
+     * @param filePattern the glob pattern the names of the checked files must match
+     * @param output the file the misspelled words are written to, or null to print them
+     * @return the running check
+     */
+    static BatchCheck start(ServiceTracker<SpellChecker, SpellChecker> tracker, Path root, String filePattern, Path output) {
+        BatchCheck check = new BatchCheck(tracker, root, filePattern, output);
+        check.thread.start();
+        return check;
+    }
+
+    /**
+     * Stops the check, if it is still running, without writing the misspelled words
+     * @throws InterruptedException if interrupted while waiting for the check to stop
+     */
+    void cancel() throws InterruptedException {
+        thread.interrupt();
+        thread.join(CANCEL_TIMEOUT_MILLIS);
+    }
+
+    private void run() {
+        try {
+            // The tracker only tracks the streaming spell checkers
+            StreamingSpellChecker spellChecker = (StreamingSpellChecker) tracker.waitForService(SERVICE_TIMEOUT_MILLIS);
+            if (spellChecker == null) {
+                System.out.println("No spell checker available");
+                return;
+            }
+            check(spellChecker);
+        } catch (IOException exception) {
+            LOGGER.log(Level.SEVERE, exception.getMessage(), exception);
+        } catch (InterruptedException exception) {
+            // The check has been cancelled
+        }
+    }
+
+    private void check(StreamingSpellChecker spellChecker) throws IOException, InterruptedException {
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(root)) {
+            files = paths.filter(path -> Files.isRegularFile(path) && fileMatcher.matches(path.getFileName()))
+                         .sorted()
+                         .collect(Collectors.toList());
+        }
+        long startTime = System.nanoTime();
+        int workers = Runtime.getRuntime().availableProcessors();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                workers, workers, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(2 * workers),
+                task -> {
+                    Thread worker = new Thread(task, "Ex7 batch check worker");
+                    worker.setDaemon(true);
+                    return worker;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        try {
+            List<Future<FileResult>> results = new ArrayList<>(files.size());
+            for (Path file : files) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                results.add(pool.submit(() -> checkFile(spellChecker, file)));
+            }
+
+            StringBuilder misspellings = new StringBuilder();
+            long bytes = 0;
+            long misspellingCount = 0;
+            int failedFiles = 0;
+            for (int i = 0; i < results.size(); i++) {
+                try {
+                    FileResult result = results.get(i).get();
+                    misspellings.append(result.misspellings);
+                    bytes += result.bytes;
+                    misspellingCount += result.misspellingCount;
+                } catch (ExecutionException exception) {
+                    LOGGER.log(Level.WARNING, "Cannot check " + files.get(i), exception.getCause());
+                    failedFiles++;
+                }
+            }
+            double seconds = (System.nanoTime() - startTime) / (double) TimeUnit.SECONDS.toNanos(1);
+
+            write(misspellings);
+            System.out.printf("Checked %d files, %.1f MB, in %.2f s: %.0f files/s, %.1f MB/s, %d misspelled words%s%n",
+                              files.size() - failedFiles, bytes / 1e6, seconds, (files.size() - failedFiles) / seconds,
+                              bytes / 1e6 / seconds, misspellingCount,
+                              failedFiles == 0 ? "" : ", " + failedFiles + " files could not be checked");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Checks a file read through a decoding stream. The misspelled words are
+     * collected with their offsets, which are turned into lines and columns
+     * by reading the file once more, only if any words are misspelled
+     * @return the misspelled words of the file
+     */
+    private FileResult checkFile(StreamingSpellChecker spellChecker, Path file) throws IOException {
+        FileResult result = new FileResult(Files.size(file));
+        try (Reader reader = open(file)) {
+            spellChecker.checkStream(reader, result::add);
+        }
+        if (result.misspellingCount == 0) {
+            return result;
+        }
+
+        String name = root.relativize(file).toString();
+        try (Reader reader = open(file)) {
+            LineCounter lines = new LineCounter(reader);
+            for (int i = 0; i < result.misspellingCount; i++) {
+                lines.advanceTo(result.offsets[i]);
+                result.misspellings.append(result.words.get(i)).append('\t').append(name).append('\t')
+                                   .append(lines.line).append('\t').append(lines.column).append('\n');
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Opens a reader of the text of a file, replacing the malformed characters
+     */
+    private static Reader open(Path file) throws IOException {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                                                       .onMalformedInput(CodingErrorAction.REPLACE)
+                                                       .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        return new InputStreamReader(Files.newInputStream(file), decoder);
+    }
+
+    /**
+     * Writes the misspelled words of all files at once
+     */
+    private void write(CharSequence misspellings) throws IOException {
+        byte[] bytes = misspellings.toString().getBytes(StandardCharsets.UTF_8);
+        if (output == null) {
+            System.out.write(bytes);
+            System.out.flush();
+        } else {
+            Files.write(output, bytes);
+        }
+    }
+
+    /**
+     * Misspelled words of a checked file
+     */
+    private static final class FileResult {
+
+        private final long bytes;
+        // The misspelled words and their offsets, in the order of the offsets
+        private final List<String> words = new ArrayList<>();
+        private long[] offsets = new long[16];
+        private int misspellingCount = 0;
+        private final StringBuilder misspellings = new StringBuilder();
+
+        private FileResult(long bytes) {
+            this.bytes = bytes;
+        }
+
+        private void add(String word, long offset) {
+            if (misspellingCount == offsets.length) {
+                offsets = Arrays.copyOf(offsets, misspellingCount * 2);
+            }
+            offsets[misspellingCount++] = offset;
+            words.add(word);
+        }
+    }
+
+    /**
+     * Finds the lines and columns of increasing offsets of a text, reading
+     * it only once, a buffer at a time. Lines and columns are counted from 1
+     */
+    private static final class LineCounter {
+
+        private final Reader reader;
+        private final char[] buffer = new char[1 << 13];
+        // Number of characters in the buffer and index of the next one to count
+        private int length = 0;
+        private int index = 0;
+        // Offset of the next character to count
+        private long position = 0;
+        private long lineStart = 0;
+        private long line = 1;
+        private long column = 1;
+
+        private LineCounter(Reader reader) {
+            this.reader = reader;
+        }
+
+        private void advanceTo(long offset) throws IOException {
+            while (position < offset) {
+                if (index == length) {
+                    length = reader.read(buffer);
+                    index = 0;
+                    if (length < 0) {
+                        // The file has been truncated since it was checked
+                        length = 0;
+                        break;
+                    }
+                }
+                if (buffer[index++] == '\n') {
+                    lineStart = position + 1;
+                    line++;
+                }
+                position++;
+            }
+            column = offset - lineStart + 1;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package tutorial.example9;
+
+import org.osgi.framework.Constants;
+import tutorial.example2.service.DictionaryService;
+import tutorial.example2.service.WordFilter;
+import tutorial.example6.spelling.FilteredDictionary;
+import tutorial.example6.spelling.WordSegmenter;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * View of one set of dictionary services handed over by the Service
+ * Component Runtime: the service objects, ready to be checked against and
+ * placed behind the summaries of their words, and the rules splitting
+ * passages into words, selected by the {@code Language} property of the
+ * services.
+ * <p>
+ * A word is only looked up in the next dictionary if it hasn't been found
+ * in the previous ones, so the dictionary finding most words should come
+ * first. The view counts the words looked up and found in every dictionary
+ * and periodically reorders the dictionaries by their recent hit rates, so
+ * that the order follows the languages of the checked text. The dictionaries
+ * behind the first one only get the words missing in the ones before them,
+ * so the hit rates are measured on a sample of the checks, whose words are
+ * looked up in all dictionaries. The counters are striped and the order is
+ * swapped atomically, so the checks never wait for each other; only the
+ * reorderings, which happen once in a number of checks, are serialized
+ */
+final class Dictionaries {
+
+    // Property of a dictionary service naming its language
+    private static final String LANGUAGE_PROPERTY = "Language";
+    // Number of checks after which the dictionaries are reordered; a power of two
+    private static final int REORDER_INTERVAL = 1 << 8;
+    // Number of checks after which the words of a check are looked up in all dictionaries; a power of two
+    private static final int SAMPLE_INTERVAL = 1 << 4;
+    // Weight of the words sampled before the last reordering in the recent numbers of sampled words
+    private static final double DECAY = 0.5;
+
+    // The set of services this view was created from
+    private final List<Map.Entry<Map<String, Object>, DictionaryService>> source;
+    // The counted dictionaries, in the order of the set of services
+    private final CountedDictionary[] dictionaries;
+    // The counted dictionaries, in the order of their recent hit rates
+    private volatile DictionaryService[] services;
+    private final AtomicInteger checkCount = new AtomicInteger();
+    private final WordSegmenter segmenter;
+
+    Dictionaries(List<Map.Entry<Map<String, Object>, DictionaryService>> source) {
+        this.source = source;
+        this.dictionaries = source.stream()
+                                  .map(entry -> new CountedDictionary(entry.getKey(), FilteredDictionary.of(
+                                          entry.getValue(), entry.getKey().get(WordFilter.PROPERTY))))
+                                  .toArray(CountedDictionary[]::new);
+        this.services = Arrays.copyOf(dictionaries, dictionaries.length, DictionaryService[].class);
+        this.segmenter = WordSegmenter.forLanguages(source.stream()
+                                                          .map(entry -> entry.getKey().get(LANGUAGE_PROPERTY))
+                                                          .map(String::valueOf)
+                                                          .collect(Collectors.toSet()));
+    }
+
+    /**
+     * Determines if this view was created from the given set of services
+     * @param services the set of services
+     * @return true if this view was created from the set of services,
+     *         false otherwise
+     */
+    boolean isViewOf(List<Map.Entry<Map<String, Object>, DictionaryService>> services) {
+        return source == services;
+    }
+
+    /**
+     * Returns the dictionary services for a single check, in the order of
+     * their recent hit rates. The returned array may be shared and must not
+     * be modified
+     * @return the dictionary services
+     */
+    DictionaryService[] services() {
+        int check = checkCount.incrementAndGet();
+        if ((check & (REORDER_INTERVAL - 1)) == 0) {
+            reorder();
+        }
+        DictionaryService[] current = services;
+        if ((check & (SAMPLE_INTERVAL - 1)) != 0 || current.length < 2) {
+            return current;
+        }
+        // The first dictionary of a sampled check passes its words on to the others
+        DictionaryService[] sampled = current.clone();
+        sampled[0] = new SamplingDictionary((CountedDictionary) current[0]);
+        return sampled;
+    }
+
+    /**
+     * Describes the dictionaries in the order they are consulted,
+     * with the shares of the looked up words found in each of them
+     * @return the description of the dictionaries
+     */
+    String describeHitRates() {
+        StringBuilder description = new StringBuilder();
+        for (DictionaryService service : services) {
+            CountedDictionary dictionary = (CountedDictionary) service;
+            long lookedUp = dictionary.lookedUp.sum();
+            long found = dictionary.found.sum();
+            description.append(String.format("%s (service %s): %d of %d looked up words found, hit rate %.1f%%%n",
+                                             dictionary.properties.get(LANGUAGE_PROPERTY),
+                                             dictionary.properties.get(Constants.SERVICE_ID), found, lookedUp,
+                                             lookedUp == 0 ? 0.0 : 100.0 * found / lookedUp));
+        }
+        return description.toString();
+    }
+
+    /**
+     * Orders the dictionaries by the shares of the sampled words found in them
+     * recently. All dictionaries get the same sampled words, wherever they are
+     * in the order, so their hit rates can be compared. Reordering happens once
+     * in a number of checks, on the thread that reached it
+     */
+    private synchronized void reorder() {
+        for (CountedDictionary dictionary : dictionaries) {
+            dictionary.recentlyLookedUp = DECAY * dictionary.recentlyLookedUp
+                                          + (1 - DECAY) * dictionary.sampledLookedUp.sumThenReset();
+            dictionary.recentlyFound = DECAY * dictionary.recentlyFound
+                                       + (1 - DECAY) * dictionary.sampledFound.sumThenReset();
+        }
+        DictionaryService[] reordered = services.clone();
+        // The sort is stable, so dictionaries with equal hit rates keep their order
+        Arrays.sort(reordered, Comparator.comparingDouble(
+                (DictionaryService dictionary) -> ((CountedDictionary) dictionary).recentHitRate()).reversed());
+        services = reordered;
+    }
+
+    /**
+     * Returns the rules splitting passages into
+     * words for the languages of the services
+     * @return the rules splitting passages into words
+     */
+    WordSegmenter segmenter() {
+        return segmenter;
+    }
+
+    /**
+     * Dictionary service counting the words looked up and found in another one
+     */
+    private static final class CountedDictionary implements DictionaryService {
+
+        private final Map<String, Object> properties;
+        private final DictionaryService dictionary;
+        private final LongAdder lookedUp = new LongAdder();
+        private final LongAdder found = new LongAdder();
+        // Words of the sampled checks since the last reordering
+        private final LongAdder sampledLookedUp = new LongAdder();
+        private final LongAdder sampledFound = new LongAdder();
+        // Decayed numbers of sampled and found words, only accessed while reordering
+        private double recentlyLookedUp = 0;
+        private double recentlyFound = 0;
+
+        private CountedDictionary(Map<String, Object> properties, DictionaryService dictionary) {
+            this.properties = properties;
+            this.dictionary = dictionary;
+        }
+
+        /**
+         * Returns the share of the sampled words found recently
+         * @return the recent hit rate, or 0 if no words have been sampled
+         */
+        private double recentHitRate() {
+            return recentlyLookedUp == 0 ? 0 : recentlyFound / recentlyLookedUp;
+        }
+
+        @Override
+        public boolean checkWord(String checkedWord) {
+            return count(dictionary.checkWord(checkedWord));
+        }
+
+        @Override
+        public BitSet checkWords(List<? extends CharSequence> checkedWords) {
+            return count(dictionary.checkWords(checkedWords), checkedWords.size());
+        }
+
+        @Override
+        public boolean checkWord(CharSequence text, int start, int end) {
+            return count(dictionary.checkWord(text, start, end));
+        }
+
+        @Override
+        public BitSet checkWords(CharSequence text, int[] starts, int[] ends, int count) {
+            return count(dictionary.checkWords(text, starts, ends, count), count);
+        }
+
+        private boolean count(boolean hit) {
+            lookedUp.increment();
+            if (hit) {
+                found.increment();
+            }
+            return hit;
+        }
+
+        private BitSet count(BitSet hits, int count) {
+            lookedUp.add(count);
+            found.add(hits.cardinality());
+            return hits;
+        }
+
+        private void sample(int hitCount, int count) {
+            sampledLookedUp.add(count);
+            sampledFound.add(hitCount);
+        }
+    }
+
+    /**
+     * First dictionary of a sampled check, which looks up the words it gets
+     * in all other dictionaries as well, only to count the ones they contain.
+     * The result of the check is the result of the first dictionary
+     */
+    private final class SamplingDictionary implements DictionaryService {
+
+        private final CountedDictionary first;
+
+        private SamplingDictionary(CountedDictionary first) {
+            this.first = first;
+        }
+
+        @Override
+        public boolean checkWord(String checkedWord) {
+            boolean hit = first.checkWord(checkedWord);
+            for (CountedDictionary dictionary : dictionaries) {
+                boolean sampledHit = dictionary == first ? hit : dictionary.dictionary.checkWord(checkedWord);
+                dictionary.sample(sampledHit ? 1 : 0, 1);
+            }
+            return hit;
+        }
+
+        @Override
+        public BitSet checkWords(List<? extends CharSequence> checkedWords) {
+            BitSet hits = first.checkWords(checkedWords);
+            for (CountedDictionary dictionary : dictionaries) {
+                BitSet sampledHits = dictionary == first ? hits : dictionary.dictionary.checkWords(checkedWords);
+                dictionary.sample(sampledHits.cardinality(), checkedWords.size());
+            }
+            return hits;
+        }
+
+        @Override
+        public boolean checkWord(CharSequence text, int start, int end) {
+            boolean hit = first.checkWord(text, start, end);
+            for (CountedDictionary dictionary : dictionaries) {
+                boolean sampledHit = dictionary == first ? hit : dictionary.dictionary.checkWord(text, start, end);
+                dictionary.sample(sampledHit ? 1 : 0, 1);
+            }
+            return hit;
+        }
+
+        @Override
+        public BitSet checkWords(CharSequence text, int[] starts, int[] ends, int count) {
+            BitSet hits = first.checkWords(text, starts, ends, count);
+            for (CountedDictionary dictionary : dictionaries) {
+                BitSet sampledHits = dictionary == first ? hits
+                                                         : dictionary.dictionary.checkWords(text, starts, ends, count);
+                dictionary.sample(sampledHits.cardinality(), count);
+            }
+            return hits;
+        }
+    }
+}
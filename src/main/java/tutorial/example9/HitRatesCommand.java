@@ -0,0 +1,35 @@
+package tutorial.example9;
+
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import tutorial.example6.service.SpellChecker;
+
+/**
+ * Gogo shell command printing the hit rates of the dictionaries used by the
+ * spell checker component of this example. It is registered with the
+ * {@value #SCOPE} scope, so that it can be called as {@code tutorial:hitrates},
+ * or just {@code hitrates}, from the shell of the Felix instance. The command
+ * is a component of its own, so that the spell checker service isn't taken
+ * for a command provider; it is only available along with the spell checker,
+ * which isn't created until the command is first run
+ */
+@Component(service = HitRatesCommand.class,
+           property = {"osgi.command.scope=" + HitRatesCommand.SCOPE,
+                       "osgi.command.function=" + HitRatesCommand.FUNCTION})
+public class HitRatesCommand {
+
+    static final String SCOPE = "tutorial";
+    static final String FUNCTION = "hitrates";
+
+    // The spell checker component of this example, bound by the Service Component Runtime
+    @Reference(target = "(component.name=tutorial.example9.SpellCheckImpl)")
+    private SpellChecker spellChecker;
+
+    /**
+     * Describes the dictionaries in the order they are consulted, with their hit rates
+     * @return the description of the dictionaries, printed by the shell
+     */
+    public String hitrates() {
+        return ((SpellCheckImpl) spellChecker).hitRates();
+    }
+}
@@ -1,15 +1,21 @@
 package tutorial.example9;
 
+import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
 import tutorial.example2.service.DictionaryService;
+import tutorial.example6.service.MisspellingListener;
 import tutorial.example6.service.SpellChecker;
+import tutorial.example6.service.StreamingSpellChecker;
+import tutorial.example6.spelling.PassageChecker;
+import tutorial.example6.spelling.StreamChecker;
 
-import java.util.ArrayList;
-import java.util.Collection;
+import java.io.IOException;
+import java.io.Reader;
 import java.util.List;
-import java.util.StringTokenizer;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * This class re-implements the spell check service of Example 6. This service
@@ -20,69 +26,117 @@ import java.util.StringTokenizer;
  * by using the Service Component Runtime. Notice that there is no OSGi reference
  * application code; instead, the annotations describe the service dependencies
  * to the Service Component Runtime, which automatically manages them and also
- * automatically registers the spell check services as appropriate
+ * automatically registers the spell check services as appropriate.
+ * Every word is looked up in the dictionaries one by one, only until it is
+ * found, and the dictionaries are kept in the order of their recent hits,
+ * so that adding dictionaries barely adds to the cost of a correct word.
+ * <p>
+ * The component is delayed: its service is registered as soon as a
+ * dictionary service is available, but the component is only created, and
+ * the dictionary services bound to it, once its service is first used. The
+ * hit rates of the dictionaries are printed by the {@link HitRatesCommand}
  */
-public class SpellCheckImpl implements SpellChecker {
+@Component(service = {SpellChecker.class, StreamingSpellChecker.class}, immediate = false)
+public class SpellCheckImpl implements StreamingSpellChecker {
 
     /**
-     * List of service objects
+     * List of service objects, each with the properties of its service
      * This field is managed by the Service Component Runtime and updated
      * with the current set of available dictionary services.
      * At least one dictionary service is required
      */
-    @Reference(policy = ReferencePolicy.DYNAMIC, cardinality = ReferenceCardinality.AT_LEAST_ONE)
-    private volatile List<DictionaryService> servicesObjectsList;
+    @Reference(service = DictionaryService.class,
+               policy = ReferencePolicy.DYNAMIC, cardinality = ReferenceCardinality.AT_LEAST_ONE)
+    private volatile List<Map.Entry<Map<String, Object>, DictionaryService>> servicesObjectsList;
+
+    // View of the last set of services, reused until the set changes
+    private volatile Dictionaries dictionaries;
+
+    // Checks the passages; large ones in parallel
+    private final PassageChecker passageChecker = new PassageChecker();
+    // Checks the streams with bounded memory
+    private final StreamChecker streamChecker = new StreamChecker();
 
     /**
-     * Checks a given passage for spelling errors. A passage is any
-     * number of words separated by a space and any of the following
-     * punctuation marks: comma (,), period (.), exclamation mark (!),
-     * question mark (?), semi-colon (;), and colon(:)
+     * Creates a spell checker to which the Service
+     * Component Runtime binds the dictionary services
+     */
+    public SpellCheckImpl() {
+        // The dictionary services are bound by the Service Component Runtime
+    }
+
+    /**
+     * Creates a spell checker bound to the given dictionaries, the same way
+     * the Service Component Runtime binds the dictionary services, so that it
+     * can be used outside of the framework, e.g. to benchmark it
+     * @param services the dictionaries, each with the properties of its service
+     */
+    public SpellCheckImpl(List<Map.Entry<Map<String, Object>, DictionaryService>> services) {
+        this.servicesObjectsList = services;
+    }
+
+    /**
+     * Checks a given passage for spelling errors. The passage is split
+     * into words according to the languages of the dictionaries. Passages longer
+     * than {@link PassageChecker#DEFAULT_PARALLEL_THRESHOLD} characters
+     * are checked in parallel
      * @param passage the passage to spell check
      * @return An array of misspelled words or null if no
      *         words are misspelled
      */
     @Override
     public String[] checkPassage(String passage) {
-        // No misspelled words for an empty string
-        if (passage == null || passage.isEmpty()) {
-            return null;
-        }
-
-        Collection<String> errorList = new ArrayList<>();
-
-        // Tokenize the passage using spaces and punctuation
-        StringTokenizer tokenizer = new StringTokenizer(passage, " ,.!?;:");
-
-        /* Put the current set of services in a local field.
-           The field servicesObjectsList will be modified concurrently */
-        final List<DictionaryService> localServices = servicesObjectsList;
+        Dictionaries localDictionaries = localDictionaries();
+        return passageChecker.check(passage, localDictionaries.services(), localDictionaries.segmenter());
+    }
 
-        // Loop through each word in the passage
-        while (tokenizer.hasMoreTokens()) {
-            String word = tokenizer.nextToken();
-            boolean correct = false;
+    /**
+     * Checks a given passage for spelling errors in parallel
+     * @param passage the passage to spell check
+     * @param pool the pool checking the chunks of the passage
+     * @return An array of misspelled words or null if no
+     *         words are misspelled
+     */
+    @Override
+    public String[] checkPassage(String passage, ForkJoinPool pool) {
+        Dictionaries localDictionaries = localDictionaries();
+        return passageChecker.check(passage, localDictionaries.services(), localDictionaries.segmenter(), pool);
+    }
 
-            // Check each available dictionary for the current word
-            for (final DictionaryService dictionaryService : localServices) {
-                if (dictionaryService.checkWord(word)) {
-                    correct = true;
-                }
-            }
+    /**
+     * Checks the text read from the given reader for spelling errors
+     * @param reader the reader of the text to spell check
+     * @param listener the listener notified of every misspelled word
+     * @throws IOException if the text cannot be read
+     */
+    @Override
+    public void checkStream(Reader reader, MisspellingListener listener) throws IOException {
+        Dictionaries localDictionaries = localDictionaries();
+        streamChecker.check(reader, localDictionaries.services(), localDictionaries.segmenter(), listener);
+    }
 
-            /* If the word is not correct, the add it
-               to the incorrect word list */
-            if (!correct) {
-                errorList.add(word);
-            }
-        }
+    /**
+     * Describes the dictionary services in the order they are consulted, which
+     * follows the numbers of words recently found in them, with their hit rates.
+     * The counts start anew whenever the set of dictionary services changes
+     * @return the description of the dictionary services, one per line
+     */
+    public String hitRates() {
+        return localDictionaries().describeHitRates();
+    }
 
-        // Return null if no words are incorrect
-        if (errorList.isEmpty()) {
-            return null;
+    /**
+     * Puts the current set of services in a local field.
+     * The field servicesObjectsList will be modified concurrently
+     * @return view of the currently available dictionary services
+     */
+    private Dictionaries localDictionaries() {
+        final List<Map.Entry<Map<String, Object>, DictionaryService>> localServices = servicesObjectsList;
+        Dictionaries localDictionaries = dictionaries;
+        if (localDictionaries == null || !localDictionaries.isViewOf(localServices)) {
+            localDictionaries = new Dictionaries(localServices);
+            dictionaries = localDictionaries;
         }
-
-        // Return the array of incorrect words
-        return errorList.toArray(new String[errorList.size()]);
+        return localDictionaries;
     }
 }